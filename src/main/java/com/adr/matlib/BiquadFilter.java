@@ -0,0 +1,115 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Streaming IIR filter made of second-order sections in series.
+ *
+ * Section i has the transfer function
+ * (b0 + b1 z^-1 + b2 z^-2) / (1 + a1 z^-1 + a2 z^-2) and is evaluated in
+ * transposed direct form II, which needs two state values per section and
+ * behaves well in floating point. High order filters should always be built
+ * as cascades like this rather than as one long recurrence, whose poles move
+ * far under rounding.
+ *
+ * Blocks are filtered one section at a time across the whole block, so the
+ * coefficients and state of a section stay in registers.
+ */
+public final class BiquadFilter implements StreamFilter {
+  private final double[] coefficients;
+  private final double[] state;
+
+  /**
+   * @param sections    One row {b0, b1, b2, a1, a2} per section, normalized so a0 = 1
+   */
+  public BiquadFilter(double[][] sections) {
+    if (sections.length == 0) {
+      throw new IllegalArgumentException("Biquad cascade needs at least one section");
+    }
+
+    coefficients = new double[5 * sections.length];
+    state = new double[2 * sections.length];
+
+    for (int i = 0; i < sections.length; i++) {
+      if (sections[i].length != 5) {
+        throw new IllegalArgumentException("Biquad section needs 5 coefficients, got " + sections[i].length);
+      }
+
+      System.arraycopy(sections[i], 0, coefficients, 5 * i, 5);
+    }
+  }
+
+  /**
+   * @return    Number of second-order sections
+   */
+  public int sections() {
+    return state.length / 2;
+  }
+
+  /**
+   * Filter that runs this cascade followed by another one
+   * @param next    Sections applied after these
+   * @return        New filter starting from silence
+   */
+  public BiquadFilter then(BiquadFilter next) {
+    double[][] sections = new double[sections() + next.sections()][];
+
+    for (int i = 0; i < sections.length; i++) {
+      double[] source = i < sections() ? coefficients : next.coefficients;
+      int offset = 5 * (i < sections() ? i : i - sections());
+      sections[i] = Arrays.copyOfRange(source, offset, offset + 5);
+    }
+
+    return new BiquadFilter(sections);
+  }
+
+  @Override
+  public double process(double sample) {
+    double x = sample;
+
+    for (int s = 0, c = 0; s < state.length; s += 2, c += 5) {
+      double y = coefficients[c] * x + state[s];
+      state[s] = coefficients[c + 1] * x - coefficients[c + 3] * y + state[s + 1];
+      state[s + 1] = coefficients[c + 2] * x - coefficients[c + 4] * y;
+      x = y;
+    }
+
+    return x;
+  }
+
+  @Override
+  public void process(double[] input, int inputOffset, double[] output, int outputOffset, int count) {
+    double[] source = input;
+    int sourceOffset = inputOffset;
+
+    for (int s = 0, c = 0; s < state.length; s += 2, c += 5) {
+      double b0 = coefficients[c];
+      double b1 = coefficients[c + 1];
+      double b2 = coefficients[c + 2];
+      double a1 = coefficients[c + 3];
+      double a2 = coefficients[c + 4];
+      double z1 = state[s];
+      double z2 = state[s + 1];
+
+      for (int i = 0; i < count; i++) {
+        double x = source[sourceOffset + i];
+        double y = b0 * x + z1;
+        z1 = b1 * x - a1 * y + z2;
+        z2 = b2 * x - a2 * y;
+        output[outputOffset + i] = y;
+      }
+
+      state[s] = z1;
+      state[s + 1] = z2;
+
+      // Later sections filter the output of the previous one in place
+      source = output;
+      sourceOffset = outputOffset;
+    }
+  }
+
+  @Override
+  public void reset() {
+    Arrays.fill(state, 0);
+  }
+}
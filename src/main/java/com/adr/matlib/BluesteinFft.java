@@ -0,0 +1,85 @@
+package com.adr.matlib;
+
+/**
+ * Bluestein's chirp-z FFT for lengths with a prime factor above 7.
+ *
+ * Using jk = (j^2 + k^2 - (k - j)^2) / 2, the length n DFT becomes a
+ * convolution with the chirp w_t = exp(-i pi d t^2 / n), which is evaluated
+ * with power of two FFTs of length m >= 2n - 1. The transformed chirp is
+ * computed once per instance; scratch buffers are kept per thread. The
+ * result is not scaled.
+ */
+final class BluesteinFft {
+  private final int n;
+  private final int m;
+  private final FftPlan forward;
+  private final FftPlan inverse;
+  private final double[] chirpRe;
+  private final double[] chirpIm;
+  private final double[] kernelRe;
+  private final double[] kernelIm;
+  private final ThreadLocal<double[][]> buffers;
+
+  BluesteinFft(int n, int d) {
+    this.n = n;
+    this.m = Integer.highestOneBit(2 * n - 1) << 1;
+    this.forward = FftPlan.of(m, 1);
+    this.inverse = FftPlan.of(m, -1);
+
+    chirpRe = new double[n];
+    chirpIm = new double[n];
+    kernelRe = new double[m];
+    kernelIm = new double[m];
+
+    for (int t = 0; t < n; t++) {
+      // t^2 mod 2n keeps the angle small and exact for large t
+      double angle = -Math.PI * d * ((long) t * t % (2L * n)) / n;
+      chirpRe[t] = Math.cos(angle);
+      chirpIm[t] = Math.sin(angle);
+
+      kernelRe[t] = chirpRe[t];
+      kernelIm[t] = -chirpIm[t];
+
+      if (t > 0) {
+        kernelRe[m - t] = chirpRe[t];
+        kernelIm[m - t] = -chirpIm[t];
+      }
+    }
+
+    forward.transform(kernelRe, kernelIm);
+    buffers = ThreadLocal.withInitial(() -> new double[2][m]);
+  }
+
+  void transform(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    double[][] buffer = buffers.get();
+    double[] ar = buffer[0];
+    double[] ai = buffer[1];
+
+    for (int t = 0; t < n; t++) {
+      double xr = re[reOffset + t * stride];
+      double xi = im[imOffset + t * stride];
+      ar[t] = xr * chirpRe[t] - xi * chirpIm[t];
+      ai[t] = xr * chirpIm[t] + xi * chirpRe[t];
+    }
+
+    for (int t = n; t < m; t++) {
+      ar[t] = 0;
+      ai[t] = 0;
+    }
+
+    forward.transform(ar, ai);
+
+    for (int t = 0; t < m; t++) {
+      double r = ar[t] * kernelRe[t] - ai[t] * kernelIm[t];
+      ai[t] = ar[t] * kernelIm[t] + ai[t] * kernelRe[t];
+      ar[t] = r;
+    }
+
+    inverse.transform(ar, ai);
+
+    for (int t = 0; t < n; t++) {
+      re[reOffset + t * stride] = ar[t] * chirpRe[t] - ai[t] * chirpIm[t];
+      im[imOffset + t * stride] = ar[t] * chirpIm[t] + ai[t] * chirpRe[t];
+    }
+  }
+}
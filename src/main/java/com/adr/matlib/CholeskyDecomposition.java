@@ -0,0 +1,365 @@
+package com.adr.matlib;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+
+/**
+ * Cholesky factorization A = LL^T of a symmetric positive definite matrix.
+ *
+ * Only the lower triangle of A is read, and L is kept in packed row-major
+ * form (row i holds L[i][0..i]), so the factorization needs half the storage
+ * and roughly half the flops of {@link LUDecomposition}. Every inner loop is
+ * a dot product of two contiguous packed rows. Matrices of order
+ * {@link #BLOCKED_THRESHOLD} and up are factored in square tiles so that the
+ * rows being combined stay in cache.
+ *
+ * A matrix that is not positive definite leaves the factorization unusable;
+ * {@link #isPositiveDefinite()} reports that and {@link MatLib#factorMatrix(double[][])}
+ * falls back to LU.
+ */
+public final class CholeskyDecomposition implements Factorization {
+  /** Order at which the tiled factorization is used */
+  public static final int BLOCKED_THRESHOLD = 128;
+
+  static final int BLOCK_SIZE = 64;
+
+  private final int n;
+  private final double[] l;
+  private final boolean positiveDefinite;
+
+  /**
+   * Factor a symmetric positive definite matrix
+   * @param matrix                            n x n matrix, only the lower triangle is read
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public CholeskyDecomposition(double[][] matrix) throws NonConformableMatrixException {
+    this(DenseMatrix.of(matrix));
+  }
+
+  /**
+   * Factor a symmetric positive definite matrix
+   * @param matrix                            n x n matrix, only the lower triangle is read
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public CholeskyDecomposition(DenseMatrix matrix) throws NonConformableMatrixException {
+    this(matrix, matrix.rows >= BLOCKED_THRESHOLD);
+  }
+
+  CholeskyDecomposition(DenseMatrix matrix, boolean blocked) throws NonConformableMatrixException {
+    if (matrix.rows != matrix.cols) {
+      throw new NonConformableMatrixException("Matrix not n x n");
+    }
+
+    n = matrix.rows;
+    l = new double[n * (n + 1) / 2];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j <= i; j++) {
+        l[row(i) + j] = matrix.get(i, j);
+      }
+    }
+
+    positiveDefinite = blocked ? factorBlocked() : factor(0, n);
+  }
+
+  /**
+   * Check that a matrix is square and exactly symmetric. This costs O(n^2)
+   * and is the cheap half of the positive definite test; the factorization
+   * itself is the other half.
+   * @param matrix    Matrix being checked
+   * @return          Whether matrix equals its transpose
+   */
+  public static boolean isSymmetric(DenseMatrix matrix) {
+    if (matrix.rows != matrix.cols) {
+      return false;
+    }
+
+    for (int i = 0; i < matrix.rows; i++) {
+      for (int j = 0; j < i; j++) {
+        if (matrix.get(i, j) != matrix.get(j, i)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Check that a jagged matrix is square and exactly symmetric
+   * @param matrix    Matrix being checked
+   * @return          Whether matrix equals its transpose
+   */
+  public static boolean isSymmetric(double[][] matrix) {
+    if (matrix.length != matrix[0].length) {
+      return false;
+    }
+
+    for (int i = 0; i < matrix.length; i++) {
+      for (int j = 0; j < i; j++) {
+        if (matrix[i][j] != matrix[j][i]) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private static int row(int i) {
+    return i * (i + 1) / 2;
+  }
+
+  private double dot(int i, int j, int from, int to) {
+    int ri = row(i);
+    int rj = row(j);
+    double sum = 0;
+
+    for (int k = from; k < to; k++) {
+      sum += l[ri + k] * l[rj + k];
+    }
+
+    return sum;
+  }
+
+  /**
+   * Unblocked row-oriented factorization of rows [from, to), assuming the
+   * columns left of from have already been subtracted out of those rows.
+   */
+  private boolean factor(int from, int to) {
+    for (int i = from; i < to; i++) {
+      int ri = row(i);
+
+      for (int j = from; j <= i; j++) {
+        double sum = l[ri + j] - dot(i, j, from, j);
+
+        if (i == j) {
+          if (sum <= 0 || Double.isNaN(sum)) {
+            return false;
+          }
+
+          l[ri + i] = Math.sqrt(sum);
+        } else {
+          l[ri + j] = sum / l[row(j) + j];
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Left-looking tiled factorization. For each block row, the contributions
+   * of all earlier columns are subtracted tile by tile, then the tiles left
+   * of the diagonal are solved and the diagonal block is factored.
+   */
+  private boolean factorBlocked() {
+    for (int i0 = 0; i0 < n; i0 += BLOCK_SIZE) {
+      int i1 = Math.min(n, i0 + BLOCK_SIZE);
+
+      for (int j0 = 0; j0 <= i0; j0 += BLOCK_SIZE) {
+        int j1 = Math.min(n, j0 + BLOCK_SIZE);
+
+        // Subtract columns [0, j0) one tile at a time
+        for (int k0 = 0; k0 < j0; k0 += BLOCK_SIZE) {
+          int k1 = k0 + BLOCK_SIZE;
+
+          for (int i = i0; i < i1; i++) {
+            int ri = row(i);
+
+            for (int j = j0; j < Math.min(j1, i + 1); j++) {
+              l[ri + j] -= dot(i, j, k0, k1);
+            }
+          }
+        }
+
+        if (j0 == i0) {
+          if (!factor(i0, i1)) {
+            return false;
+          }
+        } else {
+          // Triangular solve of the tile against the finished diagonal block j
+          for (int i = i0; i < i1; i++) {
+            int ri = row(i);
+
+            for (int j = j0; j < j1; j++) {
+              l[ri + j] = (l[ri + j] - dot(i, j, j0, j)) / l[row(j) + j];
+            }
+          }
+        }
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return n;
+  }
+
+  /**
+   * @return    Whether the matrix was positive definite
+   */
+  public boolean isPositiveDefinite() {
+    return positiveDefinite;
+  }
+
+  /**
+   * True when the matrix was not positive definite
+   * @return    Whether the factors are unusable
+   */
+  @Override
+  public boolean isSingular() {
+    return !positiveDefinite;
+  }
+
+  /**
+   * Lower triangular factor L
+   * @return    L as a new matrix
+   */
+  public double[][] lower() {
+    double[][] lower = new double[n][n];
+
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(l, row(i), lower[i], 0, i + 1);
+    }
+
+    return lower;
+  }
+
+  /**
+   * Natural log of the determinant, 2 * sum(log(L[i][i])). Unlike
+   * {@link #determinant()} this does not overflow for large matrices.
+   * @return    log(det(A))
+   */
+  public double logDeterminant() {
+    checkPositiveDefinite();
+
+    double sum = 0;
+
+    for (int i = 0; i < n; i++) {
+      sum += Math.log(l[row(i) + i]);
+    }
+
+    return 2 * sum;
+  }
+
+  /**
+   * Determinant of the factored matrix. A matrix that is not positive
+   * definite need not be singular, and its determinant cannot be read from a
+   * failed factorization, so unlike {@link LUDecomposition#determinant()}
+   * this throws instead of returning 0.
+   * @return                        det(A) = product(L[i][i])^2
+   * @throws ArithmeticException    Matrix is not positive definite
+   */
+  @Override
+  public double determinant() {
+    checkPositiveDefinite();
+
+    double product = 1;
+
+    for (int i = 0; i < n; i++) {
+      product *= l[row(i) + i];
+    }
+
+    return product * product;
+  }
+
+  @Override
+  public double[] solve(double[] b) throws NonConformableMatrixException {
+    if (b.length != n) {
+      throw new NonConformableMatrixException(String.format("Vector of length %s, matrix is %s x %s", b.length, n, n));
+    }
+
+    double[] x = b.clone();
+    substitute(x, 1);
+
+    return x;
+  }
+
+  @Override
+  public double[][] solve(double[][] b) throws NonConformableMatrixException {
+    return solve(DenseMatrix.of(b)).toArray();
+  }
+
+  @Override
+  public DenseMatrix solve(DenseMatrix b) throws NonConformableMatrixException {
+    if (b.rows != n) {
+      throw new NonConformableMatrixException(String.format("Matrix B has %s rows, matrix A is %s x %s", b.rows, n, n));
+    }
+
+    DenseMatrix x = b.copy();
+    substitute(x.data, b.cols);
+
+    return x;
+  }
+
+  @Override
+  public double[][] inverse() {
+    DenseMatrix x = DenseMatrix.identity(n);
+    substitute(x.data, n);
+
+    return x.toArray();
+  }
+
+  /**
+   * Solve LL^T X = B in place for k right hand sides stored row-major in x
+   */
+  private void substitute(double[] x, int k) {
+    forwardSubstitute(x, k);
+    backSubstitute(x, k);
+  }
+
+  // Ly = b
+  private void forwardSubstitute(double[] x, int k) {
+    checkPositiveDefinite();
+
+    for (int i = 0; i < n; i++) {
+      int ri = row(i);
+
+      for (int j = 0; j < i; j++) {
+        double lij = l[ri + j];
+
+        for (int c = 0; c < k; c++) {
+          x[i * k + c] -= lij * x[j * k + c];
+        }
+      }
+
+      for (int c = 0; c < k; c++) {
+        x[i * k + c] /= l[ri + i];
+      }
+    }
+  }
+
+  // L^T x = y, walking the packed rows of L from the bottom up
+  private void backSubstitute(double[] x, int k) {
+    for (int i = n - 1; i >= 0; i--) {
+      int ri = row(i);
+
+      for (int c = 0; c < k; c++) {
+        x[i * k + c] /= l[ri + i];
+      }
+
+      for (int j = 0; j < i; j++) {
+        double lij = l[ri + j];
+
+        for (int c = 0; c < k; c++) {
+          x[j * k + c] -= lij * x[i * k + c];
+        }
+      }
+    }
+  }
+
+  /**
+   * @return    Approximate heap footprint of the factors in bytes
+   */
+  long bytes() {
+    return 8L * l.length;
+  }
+
+  private void checkPositiveDefinite() {
+    if (!positiveDefinite) {
+      throw new ArithmeticException("Matrix is not positive definite");
+    }
+  }
+}
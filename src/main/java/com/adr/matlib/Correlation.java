@@ -0,0 +1,136 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Cross-correlation r[i] = sum_j y[j] x[i + j] for lags 0 <= i < x.length,
+ * with y treated as zero past its end.
+ *
+ * Short problems use the direct double loop. Longer ones zero-pad both
+ * signals to an even length L >= n + m - 1 of the form 2^a 3^b, so the
+ * circular correlation computed with real FFTs has no wraparound, and
+ * multiply the spectra as conj(Y) X. Those lengths run entirely on the
+ * radix-4, radix-2 and radix-3 kernels, which measured faster than both
+ * power of two padding and the generic radix-5 and radix-7 butterflies.
+ * The crossover compares the n * m multiply-adds of the direct loop against
+ * the cost of three real transforms of length L.
+ */
+final class Correlation {
+  /** Direct multiply-adds that cost about as much as one L log2 L of FFT work */
+  static final int FFT_COST = 2;
+
+  private Correlation() {
+  }
+
+  static double[] crossCorrelation(double[] y, double[] x) {
+    int n = x.length;
+    int m = Math.min(y.length, n);
+
+    if (n == 0 || m == 0) {
+      return new double[n];
+    }
+
+    return useDirect(n, m) ? direct(y, x, m) : viaFft(y, x, m);
+  }
+
+  static boolean useDirect(int n, int m) {
+    long size = fftSize(n + m - 1);
+    long log = 64 - Long.numberOfLeadingZeros(size);
+
+    return (long) n * m <= FFT_COST * 3 * size * log;
+  }
+
+  /**
+   * Sum of squares, the lag 0 autocorrelation
+   */
+  static double energy(double[] x) {
+    double sum = 0;
+
+    for (double value : x) {
+      sum += value * value;
+    }
+
+    return sum;
+  }
+
+  /**
+   * Smallest even length 2^a 3^b of at least minimum
+   */
+  static int fftSize(int minimum) {
+    long best = Long.MAX_VALUE;
+
+    for (long power3 = 1; power3 < best; power3 *= 3) {
+      long size = 2 * power3;
+
+      while (size < minimum) {
+        size *= 2;
+      }
+
+      best = Math.min(best, size);
+    }
+
+    return (int) best;
+  }
+
+  static double[] direct(double[] y, double[] x, int m) {
+    int n = x.length;
+    double[] r = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      int end = Math.min(m, n - i);
+
+      for (int j = 0; j < end; j++) {
+        r[i] += x[i + j] * y[j];
+      }
+    }
+
+    return r;
+  }
+
+  static double[] viaFft(double[] y, double[] x, int m) {
+    RealFftPlan plan = RealFftPlan.of(fftSize(x.length + m - 1));
+    double[][] spectrum = spectrum(plan, y, m);
+    double[] r = new double[x.length];
+
+    viaFft(plan, spectrum[0], spectrum[1], x, new double[plan.size()], new double[plan.bins()], new double[plan.bins()], r);
+
+    return r;
+  }
+
+  /**
+   * Spectrum of y[0..m) zero-padded to the plan length
+   * @return    {real parts, imaginary parts}
+   */
+  static double[][] spectrum(RealFftPlan plan, double[] y, int m) {
+    double[] padded = new double[plan.size()];
+    double[][] spectrum = new double[2][plan.bins()];
+
+    System.arraycopy(y, 0, padded, 0, m);
+    plan.forward(padded, spectrum[0], spectrum[1]);
+
+    return spectrum;
+  }
+
+  /**
+   * Correlate x against a template spectrum, writing lags 0 to x.length - 1
+   * into r. padded, re and im are scratch buffers sized for the plan.
+   */
+  static void viaFft(RealFftPlan plan, double[] yRe, double[] yIm, double[] x,
+                     double[] padded, double[] re, double[] im, double[] r) {
+    int n = x.length;
+
+    System.arraycopy(x, 0, padded, 0, n);
+    Arrays.fill(padded, n, padded.length, 0);
+    plan.forward(padded, re, im);
+
+    // conj(Y) X
+    for (int k = 0; k < re.length; k++) {
+      double product = yRe[k] * re[k] + yIm[k] * im[k];
+      im[k] = yRe[k] * im[k] - yIm[k] * re[k];
+      re[k] = product;
+    }
+
+    plan.inverse(re, im, padded);
+    System.arraycopy(padded, 0, r, 0, n);
+  }
+}
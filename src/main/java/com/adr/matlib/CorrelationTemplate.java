@@ -0,0 +1,138 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+/**
+ * Pulse template prepared for correlation against many signals.
+ *
+ * The template energy is computed once, and the template spectrum once per
+ * padded FFT length, so a batch of equal-length captures transforms the
+ * template a single time. Each thread keeps its own scratch buffers, and
+ * batches are split over a fork-join pool one signal per task. Results are
+ * identical to {@link MatLib#crossCorrelation(double[], double[])} and
+ * {@link MatLib#normalizedCrossCorrelatiton(double[], double[])} with the
+ * template as y. Instances are thread-safe.
+ */
+public final class CorrelationTemplate {
+  /** Number of template spectra kept, one per distinct padded length */
+  static final int SPECTRUM_CACHE_SIZE = 8;
+
+  private final double[] template;
+  private final double energy;
+  private final PlanCache<double[][]> spectra = new PlanCache<>(SPECTRUM_CACHE_SIZE);
+  // Built once so lookups allocate nothing; the key holds the padded length and m
+  private final LongFunction<double[][]> spectrumFactory = this::spectrum;
+  private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+  /**
+   * @param template    Pulse correlated against every signal, copied
+   */
+  public CorrelationTemplate(double[] template) {
+    this.template = template.clone();
+    this.energy = Correlation.energy(template);
+  }
+
+  public int length() {
+    return template.length;
+  }
+
+  /**
+   * Cross-correlation of the template with x at lags 0 to x.length - 1
+   * @param x   Signal
+   * @return    Correlation at every lag
+   */
+  public double[] crossCorrelation(double[] x) {
+    int n = x.length;
+    int m = Math.min(template.length, n);
+
+    if (n == 0 || m == 0) {
+      return new double[n];
+    }
+
+    if (Correlation.useDirect(n, m)) {
+      return Correlation.direct(template, x, m);
+    }
+
+    RealFftPlan plan = RealFftPlan.of(Correlation.fftSize(n + m - 1));
+    double[][] spectrum = spectra.get(((long) plan.size() << 32) | m, spectrumFactory);
+    Scratch buffers = scratch.get().sized(plan);
+    double[] r = new double[n];
+
+    Correlation.viaFft(plan, spectrum[0], spectrum[1], x, buffers.padded, buffers.re, buffers.im, r);
+
+    return r;
+  }
+
+  /**
+   * Cross-correlation divided by the square root of the signal and template energies
+   * @param x   Signal
+   * @return    Normalized correlation at every lag
+   */
+  public double[] normalizedCrossCorrelation(double[] x) {
+    double[] norm = crossCorrelation(x);
+    double scale = Math.sqrt(Correlation.energy(x) * energy);
+
+    for (int i = 0; i < norm.length; i++) {
+      norm[i] = norm[i] / scale;
+    }
+
+    return norm;
+  }
+
+  /**
+   * Correlate every signal, one signal per task on pool
+   * @param signals   Signals of any lengths
+   * @param pool      Pool running the signals, or null for the calling thread
+   * @return          Correlation of each signal
+   */
+  public double[][] crossCorrelation(double[][] signals, ForkJoinPool pool) {
+    double[][] results = new double[signals.length][];
+
+    ParallelRange.forRange(pool, 0, signals.length, 1, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        results[i] = crossCorrelation(signals[i]);
+      }
+    });
+
+    return results;
+  }
+
+  /**
+   * Normalized correlation of every signal, one signal per task on pool
+   * @param signals   Signals of any lengths
+   * @param pool      Pool running the signals, or null for the calling thread
+   * @return          Normalized correlation of each signal
+   */
+  public double[][] normalizedCrossCorrelation(double[][] signals, ForkJoinPool pool) {
+    double[][] results = new double[signals.length][];
+
+    ParallelRange.forRange(pool, 0, signals.length, 1, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        results[i] = normalizedCrossCorrelation(signals[i]);
+      }
+    });
+
+    return results;
+  }
+
+  private double[][] spectrum(long key) {
+    return Correlation.spectrum(RealFftPlan.of((int) (key >>> 32)), template, (int) key);
+  }
+
+  private static final class Scratch {
+    private double[] padded = new double[0];
+    private double[] re = new double[0];
+    private double[] im = new double[0];
+
+    Scratch sized(RealFftPlan plan) {
+      if (padded.length != plan.size()) {
+        padded = new double[plan.size()];
+        re = new double[plan.bins()];
+        im = new double[plan.bins()];
+      }
+
+      return this;
+    }
+  }
+}
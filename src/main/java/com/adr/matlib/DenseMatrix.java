@@ -0,0 +1,261 @@
+package com.adr.matlib;
+
+/**
+ * Dense matrix stored in a single row-major {@code double[]}.
+ *
+ * Element (i, j) lives at {@code offset + i * rowStride + j * colStride}, so
+ * sub matrices, transposes and partitions are views over the same storage and
+ * copy nothing. Writes through a view are visible in every matrix sharing the
+ * storage; use {@link #copy()} when an independent matrix is needed.
+ */
+public final class DenseMatrix {
+  final double[] data;
+  final int offset;
+  final int rows;
+  final int cols;
+  final int rowStride;
+  final int colStride;
+
+  /**
+   * Create a zero filled matrix
+   * @param rows    Number of rows
+   * @param cols    Number of columns
+   */
+  public DenseMatrix(int rows, int cols) {
+    this(new double[rows * cols], 0, rows, cols, cols, 1);
+  }
+
+  DenseMatrix(double[] data, int offset, int rows, int cols, int rowStride, int colStride) {
+    if (rows < 0 || cols < 0) {
+      throw new IllegalArgumentException(String.format("Invalid matrix size: %s x %s", rows, cols));
+    }
+
+    this.data = data;
+    this.offset = offset;
+    this.rows = rows;
+    this.cols = cols;
+    this.rowStride = rowStride;
+    this.colStride = colStride;
+  }
+
+  /**
+   * Wrap an existing row-major array without copying it
+   * @param data    Row-major storage of at least rows * cols elements
+   * @param rows    Number of rows
+   * @param cols    Number of columns
+   * @return        Matrix backed by data
+   */
+  public static DenseMatrix wrap(double[] data, int rows, int cols) {
+    if (data.length < rows * cols) {
+      throw new IllegalArgumentException(String.format("Array of length %s cannot hold %s x %s",
+          data.length, rows, cols));
+    }
+
+    return new DenseMatrix(data, 0, rows, cols, cols, 1);
+  }
+
+  /**
+   * Copy a jagged matrix into flat storage
+   * @param matrix    Matrix in double[][] form
+   * @return          Row-major copy of matrix
+   */
+  public static DenseMatrix of(double[][] matrix) {
+    int cols = matrix.length == 0 ? 0 : matrix[0].length;
+    DenseMatrix dense = new DenseMatrix(matrix.length, cols);
+
+    for (int i = 0; i < matrix.length; i++) {
+      System.arraycopy(matrix[i], 0, dense.data, i * cols, cols);
+    }
+
+    return dense;
+  }
+
+  /**
+   * Generate a n x n identity matrix
+   * @param n     Column/Row size
+   * @return      n x n identity matrix
+   */
+  public static DenseMatrix identity(int n) {
+    DenseMatrix identity = new DenseMatrix(n, n);
+
+    for (int i = 0; i < n; i++) {
+      identity.data[i * n + i] = 1;
+    }
+
+    return identity;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int cols() {
+    return cols;
+  }
+
+  public double get(int row, int col) {
+    return data[index(row, col)];
+  }
+
+  public void set(int row, int col, double value) {
+    data[index(row, col)] = value;
+  }
+
+  int index(int row, int col) {
+    return offset + row * rowStride + col * colStride;
+  }
+
+  /**
+   * True when the matrix occupies a contiguous row-major block of its storage
+   * @return    Whether rows are packed back to back with unit column stride
+   */
+  public boolean isCompact() {
+    return colStride == 1 && (rowStride == cols || rows <= 1);
+  }
+
+  /**
+   * View of a rectangular block of this matrix. Nothing is copied.
+   * @param row     First row of the block
+   * @param col     First column of the block
+   * @param rows    Number of rows in the block
+   * @param cols    Number of columns in the block
+   * @return        View sharing storage with this matrix
+   */
+  public DenseMatrix subMatrix(int row, int col, int rows, int cols) {
+    if (row < 0 || col < 0 || rows < 0 || cols < 0 || row + rows > this.rows || col + cols > this.cols) {
+      throw new IndexOutOfBoundsException(String.format("Block (%s, %s) %s x %s outside %s x %s matrix",
+          row, col, rows, cols, this.rows, this.cols));
+    }
+
+    return new DenseMatrix(data, index(row, col), rows, cols, rowStride, colStride);
+  }
+
+  /**
+   * View of the transpose of this matrix. Nothing is copied.
+   * @return    Transpose sharing storage with this matrix
+   */
+  public DenseMatrix transpose() {
+    return new DenseMatrix(data, offset, cols, rows, colStride, rowStride);
+  }
+
+  /**
+   * Split the matrix column-wise into [A, B] views
+   * @param sizeOfFirstPart   Number of columns in A
+   * @return                  Views A and B sharing storage with this matrix
+   */
+  public DenseMatrix[] partition(int sizeOfFirstPart) {
+    return new DenseMatrix[] {
+        subMatrix(0, 0, rows, sizeOfFirstPart),
+        subMatrix(0, sizeOfFirstPart, rows, cols - sizeOfFirstPart)
+    };
+  }
+
+  /**
+   * Compact row-major copy of this matrix
+   * @return    Independent duplicate
+   */
+  public DenseMatrix copy() {
+    DenseMatrix copy = new DenseMatrix(rows, cols);
+
+    if (isCompact()) {
+      System.arraycopy(data, offset, copy.data, 0, rows * cols);
+      return copy;
+    }
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        copy.data[i * cols + j] = data[index(i, j)];
+      }
+    }
+
+    return copy;
+  }
+
+  /**
+   * Copy this matrix into jagged form
+   * @return    Matrix as double[][]
+   */
+  public double[][] toArray() {
+    double[][] matrix = new double[rows][cols];
+
+    for (int i = 0; i < rows; i++) {
+      if (colStride == 1) {
+        System.arraycopy(data, offset + i * rowStride, matrix[i], 0, cols);
+      } else {
+        for (int j = 0; j < cols; j++) {
+          matrix[i][j] = data[index(i, j)];
+        }
+      }
+    }
+
+    return matrix;
+  }
+
+  /**
+   * Copy the values of another matrix of the same size into this one
+   * @param source    Matrix being copied
+   */
+  public void assign(DenseMatrix source) {
+    if (source.rows != rows || source.cols != cols) {
+      throw new IllegalArgumentException(String.format("Cannot assign %s x %s matrix to %s x %s matrix",
+          source.rows, source.cols, rows, cols));
+    }
+
+    for (int i = 0; i < rows; i++) {
+      int s = source.index(i, 0);
+      int t = index(i, 0);
+
+      if (colStride == 1 && source.colStride == 1) {
+        System.arraycopy(source.data, s, data, t, cols);
+      } else {
+        for (int j = 0; j < cols; j++) {
+          data[t + j * colStride] = source.data[s + j * source.colStride];
+        }
+      }
+    }
+  }
+
+  /**
+   * Subtract a multiple of one row from another, in place
+   * @param value   Row being subtracted
+   * @param from    Row being modified
+   * @param times   Multiple of row value
+   */
+  public void subtractRow(int value, int from, double times) {
+    int v = index(value, 0);
+    int f = index(from, 0);
+
+    for (int j = 0; j < cols; j++) {
+      data[f + j * colStride] -= times * data[v + j * colStride];
+    }
+  }
+
+  /**
+   * Divide a row by a scalar, in place
+   * @param row     Row being modified
+   * @param with    Divisor
+   */
+  public void divideRow(int row, double with) {
+    int r = index(row, 0);
+
+    for (int j = 0; j < cols; j++) {
+      data[r + j * colStride] /= with;
+    }
+  }
+
+  /**
+   * Swap two rows, in place
+   * @param replace   First row
+   * @param with      Second row
+   */
+  public void swapRow(int replace, int with) {
+    int a = index(replace, 0);
+    int b = index(with, 0);
+
+    for (int j = 0; j < cols; j++) {
+      double temp = data[a + j * colStride];
+      data[a + j * colStride] = data[b + j * colStride];
+      data[b + j * colStride] = temp;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.adr.matlib;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+
+/**
+ * A square matrix factored once so that determinants, inverses and solves
+ * against any number of right hand sides reuse the same factors.
+ */
+public interface Factorization {
+  /**
+   * @return    Order n of the factored n x n matrix
+   */
+  int size();
+
+  /**
+   * True when the factors cannot be used to solve. Solves and inverses throw
+   * {@link ArithmeticException} in that case.
+   * @return    Whether the factorization broke down
+   */
+  boolean isSingular();
+
+  /**
+   * Determinant of the factored matrix. When {@link #isSingular()} is true
+   * the implementations differ: {@link LUDecomposition} found a zero pivot
+   * and returns 0, while {@link CholeskyDecomposition} only knows the matrix
+   * is not positive definite and throws {@link ArithmeticException}.
+   * @return    Determinant of the factored matrix
+   */
+  double determinant();
+
+  /**
+   * Solve Ax = b
+   * @param b                                 Right hand side of length n
+   * @return                                  Solution x
+   * @throws NonConformableMatrixException    b does not have length n
+   */
+  double[] solve(double[] b) throws NonConformableMatrixException;
+
+  /**
+   * Solve AX = B for every column of B at once
+   * @param b                                 n x k right hand sides
+   * @return                                  n x k solution X
+   * @throws NonConformableMatrixException    B does not have n rows
+   */
+  double[][] solve(double[][] b) throws NonConformableMatrixException;
+
+  /**
+   * Solve AX = B for every column of B at once
+   * @param b                                 n x k right hand sides
+   * @return                                  n x k solution X
+   * @throws NonConformableMatrixException    B does not have n rows
+   */
+  DenseMatrix solve(DenseMatrix b) throws NonConformableMatrixException;
+
+  /**
+   * @return    Inverse of the factored matrix
+   */
+  double[][] inverse();
+}
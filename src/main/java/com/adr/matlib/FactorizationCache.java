@@ -0,0 +1,253 @@
+package com.adr.matlib;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe LRU cache of matrix factorizations.
+ *
+ * Entries are keyed either by the identity of the matrix object or by a hash
+ * of its contents, and are evicted least recently used first once the entry
+ * count or the estimated byte size passes its bound. Factorizations are
+ * computed with {@link MatLib#factorMatrix(DenseMatrix)} outside the lock, so
+ * a slow factorization never blocks lookups of other matrices.
+ *
+ * With {@link KeyMode#IDENTITY} a matrix that is modified after being cached
+ * keeps returning its old factorization until {@link #invalidate(Object)} is
+ * called. {@link KeyMode#CONTENT} hashes the whole matrix on every lookup and
+ * keeps a private copy of it, but is always consistent.
+ *
+ * Install a cache with {@link MatLib#setFactorizationCache(FactorizationCache)}
+ * to have calculateDeterminant, invertMatrix and solveLinearSystem use it.
+ */
+public final class FactorizationCache {
+
+  public enum KeyMode {
+    /** Same matrix object */
+    IDENTITY,
+    /** Same dimensions and element values */
+    CONTENT
+  }
+
+  private final KeyMode mode;
+  private final int maxEntries;
+  private final long maxBytes;
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param mode          How matrices are matched to entries
+   * @param maxEntries    Maximum number of cached factorizations
+   * @param maxBytes      Maximum estimated size of all cached entries
+   */
+  public FactorizationCache(KeyMode mode, int maxEntries, long maxBytes) {
+    if (maxEntries < 1 || maxBytes < 1) {
+      throw new IllegalArgumentException("Cache bounds must be positive");
+    }
+
+    this.mode = mode;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Cached factorization of matrix, computing and storing it on a miss
+   * @param matrix                            n x n matrix
+   * @return                                  Factorization of matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public Factorization get(double[][] matrix) throws NonConformableMatrixException {
+    Object key = mode == KeyMode.CONTENT ? new ContentKey(DenseMatrix.of(matrix)) : new IdentityKey(matrix);
+    Factorization factorization = lookup(key);
+
+    if (factorization != null) {
+      return factorization;
+    }
+
+    return store(key, MatLib.factorMatrix(matrix));
+  }
+
+  /**
+   * Cached factorization of matrix, computing and storing it on a miss
+   * @param matrix                            n x n matrix
+   * @return                                  Factorization of matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public Factorization get(DenseMatrix matrix) throws NonConformableMatrixException {
+    Object key = mode == KeyMode.CONTENT ? new ContentKey(matrix.copy()) : new IdentityKey(matrix);
+    Factorization factorization = lookup(key);
+
+    if (factorization != null) {
+      return factorization;
+    }
+
+    return store(key, MatLib.factorMatrix(matrix));
+  }
+
+  /**
+   * Drop the entry of a matrix, for example after modifying an identity keyed matrix
+   * @param matrix    double[][] or DenseMatrix previously passed to get
+   */
+  public synchronized void invalidate(Object matrix) {
+    Object key;
+
+    if (mode == KeyMode.IDENTITY) {
+      key = new IdentityKey(matrix);
+    } else if (matrix instanceof DenseMatrix) {
+      key = new ContentKey(((DenseMatrix) matrix).copy());
+    } else {
+      key = new ContentKey(DenseMatrix.of((double[][]) matrix));
+    }
+
+    Entry removed = entries.remove(key);
+
+    if (removed != null) {
+      bytes -= removed.bytes;
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  public synchronized long hits() {
+    return hits;
+  }
+
+  public synchronized long misses() {
+    return misses;
+  }
+
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  private synchronized Factorization lookup(Object key) {
+    Entry entry = entries.get(key);
+
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+    return entry.factorization;
+  }
+
+  private synchronized Factorization store(Object key, Factorization factorization) {
+    Entry existing = entries.get(key);
+
+    // Another thread factored the same matrix first
+    if (existing != null) {
+      return existing.factorization;
+    }
+
+    long size = bytesOf(factorization) + (key instanceof ContentKey ? 8L * ((ContentKey) key).values.length : 0);
+
+    if (size > maxBytes) {
+      return factorization;
+    }
+
+    entries.put(key, new Entry(factorization, size));
+    bytes += size;
+
+    Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+
+    while (entries.size() > maxEntries || bytes > maxBytes) {
+      bytes -= eldest.next().getValue().bytes;
+      eldest.remove();
+      evictions++;
+    }
+
+    return factorization;
+  }
+
+  private static long bytesOf(Factorization factorization) {
+    if (factorization instanceof LUDecomposition) {
+      return ((LUDecomposition) factorization).bytes();
+    }
+
+    if (factorization instanceof CholeskyDecomposition) {
+      return ((CholeskyDecomposition) factorization).bytes();
+    }
+
+    return 8L * factorization.size() * factorization.size();
+  }
+
+  private static final class Entry {
+    final Factorization factorization;
+    final long bytes;
+
+    Entry(Factorization factorization, long bytes) {
+      this.factorization = factorization;
+      this.bytes = bytes;
+    }
+  }
+
+  private static final class IdentityKey {
+    private final Object matrix;
+
+    IdentityKey(Object matrix) {
+      this.matrix = matrix;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).matrix == matrix;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(matrix);
+    }
+  }
+
+  private static final class ContentKey {
+    private final int rows;
+    private final int cols;
+    private final double[] values;
+    private final int hash;
+
+    /**
+     * @param matrix    Compact matrix owned by the key
+     */
+    ContentKey(DenseMatrix matrix) {
+      this.rows = matrix.rows;
+      this.cols = matrix.cols;
+      this.values = matrix.data;
+      this.hash = 31 * (31 * rows + cols) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ContentKey)) {
+        return false;
+      }
+
+      ContentKey that = (ContentKey) o;
+      return hash == that.hash && rows == that.rows && cols == that.cols && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
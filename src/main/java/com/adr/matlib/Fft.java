@@ -0,0 +1,208 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * In-place complex FFT on primitive arrays.
+ *
+ * Sequences are stored either as two split arrays of real and imaginary parts
+ * or as one interleaved array re0, im0, re1, im1, ... Every transform works
+ * directly on the caller's arrays and allocates nothing, unlike
+ * {@link MatLib#fastFourierTransform(Complex[], int)} which now only copies
+ * into split arrays and back.
+ *
+ * Powers of two above 8 use decimation in frequency with radix-4 passes and,
+ * when the number of stages is odd, a final radix-2 pass, followed by a
+ * bit-reversal permutation. Lengths 2, 4 and 8 use unrolled codelets, and
+ * other lengths use mixed radix or Bluestein kernels, see {@link FftPlan}.
+ * Results are always in natural order and the inverse transform (d = -1) is
+ * scaled by 1/n.
+ * Twiddle factors and permutations come from the cached {@link FftPlan} of
+ * each length and direction.
+ */
+public final class Fft {
+  /** Default length below which a parallel transform stays serial */
+  public static final int PARALLEL_THRESHOLD = 1 << 18;
+
+  private Fft() {
+  }
+
+  /**
+   * Transform split arrays in place
+   * @param re    Real parts, length n
+   * @param im    Imaginary parts, length n
+   * @param d     Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transform(double[] re, double[] im, int d) {
+    if (re.length != im.length) {
+      throw new IllegalArgumentException(String.format("Real part has length %s, imaginary part has length %s", re.length, im.length));
+    }
+
+    transform(re, 0, im, 0, 1, re.length, d);
+  }
+
+  /**
+   * Transform split arrays in place, splitting large transforms into
+   * independent row transforms on pool. See {@link FourStepFft}.
+   * @param re      Real parts, length n
+   * @param im      Imaginary parts, length n
+   * @param d       Direction. 1 for FFT, -1 for inverse FFT
+   * @param pool    Pool running the row transforms
+   */
+  public static void transform(double[] re, double[] im, int d, ForkJoinPool pool) {
+    transform(re, im, d, pool, PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Transform split arrays in place, splitting transforms of at least
+   * threshold elements into independent row transforms on pool. Shorter
+   * transforms, and lengths without a useful factorization such as primes,
+   * run serially on the calling thread.
+   * @param re          Real parts, length n
+   * @param im          Imaginary parts, length n
+   * @param d           Direction. 1 for FFT, -1 for inverse FFT
+   * @param pool        Pool running the row transforms
+   * @param threshold   Minimum length worth splitting
+   */
+  public static void transform(double[] re, double[] im, int d, ForkJoinPool pool, int threshold) {
+    if (re.length != im.length) {
+      throw new IllegalArgumentException(String.format("Real part has length %s, imaginary part has length %s", re.length, im.length));
+    }
+
+    FourStepFft plan = re.length >= threshold ? FourStepFft.of(re.length, d) : null;
+
+    if (plan == null) {
+      transform(re, 0, im, 0, 1, re.length, d);
+      return;
+    }
+
+    plan.transform(pool, re, im);
+  }
+
+  /**
+   * Transform an interleaved array in place
+   * @param data    Interleaved real and imaginary parts, length 2n
+   * @param d       Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transform(double[] data, int d) {
+    if (data.length % 2 != 0) {
+      throw new IllegalArgumentException("Interleaved array has odd length " + data.length);
+    }
+
+    transform(data, 0, data, 1, 2, data.length / 2, d);
+  }
+
+  /**
+   * Transform n elements in place. Element i has its real part at
+   * re[reOffset + i * stride] and its imaginary part at im[imOffset + i * stride],
+   * which covers split arrays, interleaved arrays and columns of a row-major
+   * matrix alike.
+   * @param re          Array holding the real parts
+   * @param reOffset    Index of the first real part
+   * @param im          Array holding the imaginary parts, may be re
+   * @param imOffset    Index of the first imaginary part
+   * @param stride      Distance between consecutive elements
+   * @param n           Number of elements
+   * @param d           Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transform(double[] re, int reOffset, double[] im, int imOffset, int stride, int n, int d) {
+    FftPlan.of(n, d).transform(re, reOffset, im, imOffset, stride);
+  }
+
+  /**
+   * Transform many signals of the same length, stored one after another, in place
+   * @param re        Real parts, a multiple of length
+   * @param im        Imaginary parts, same length as re
+   * @param length    Length of every signal
+   * @param d         Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transformBatch(double[] re, double[] im, int length, int d) {
+    transformBatch(re, im, length, d, null);
+  }
+
+  /**
+   * Transform many signals of the same length in place, several signals per task on pool
+   * @param pool    Pool running the signals, or null to stay on the calling thread
+   */
+  public static void transformBatch(double[] re, double[] im, int length, int d, ForkJoinPool pool) {
+    if (length < 1 || re.length % length != 0 || im.length != re.length) {
+      throw new IllegalArgumentException(String.format("Arrays of length %s and %s do not hold signals of length %s", re.length, im.length, length));
+    }
+
+    FftAxes.transformAxis(pool, re, im, re.length / length, length, 1, d);
+  }
+
+  /**
+   * 2D transform of a rows x cols row-major matrix in place
+   * @param re      Real parts, length rows * cols
+   * @param im      Imaginary parts, length rows * cols
+   * @param rows    Number of rows
+   * @param cols    Number of columns
+   * @param d       Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transform2d(double[] re, double[] im, int rows, int cols, int d) {
+    FftAxes.transform(null, re, im, new int[]{rows, cols}, d);
+  }
+
+  /**
+   * 2D transform of a row-major matrix in place, rows and column bands running on pool
+   */
+  public static void transform2d(double[] re, double[] im, int rows, int cols, int d, ForkJoinPool pool) {
+    FftAxes.transform(pool, re, im, new int[]{rows, cols}, d);
+  }
+
+  /**
+   * 2D transform of a matrix with jagged rows of equal length in place
+   * @param re    Real parts, rows x cols
+   * @param im    Imaginary parts, rows x cols
+   * @param d     Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transform2d(double[][] re, double[][] im, int d) {
+    FftAxes.transform(null, re, im, d);
+  }
+
+  /**
+   * 2D transform of a jagged matrix in place, rows and column bands running on pool
+   */
+  public static void transform2d(double[][] re, double[][] im, int d, ForkJoinPool pool) {
+    FftAxes.transform(pool, re, im, d);
+  }
+
+  /**
+   * Transform every axis of a row-major array in place. The last axis varies fastest.
+   * @param re      Real parts, length equal to the product of shape
+   * @param im      Imaginary parts, same length as re
+   * @param shape   Length of each axis
+   * @param d       Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public static void transformNd(double[] re, double[] im, int[] shape, int d) {
+    FftAxes.transform(null, re, im, shape, d);
+  }
+
+  /**
+   * N-dimensional transform in place, rows and column bands of every axis running on pool
+   */
+  public static void transformNd(double[] re, double[] im, int[] shape, int d, ForkJoinPool pool) {
+    FftAxes.transform(pool, re, im, shape, d);
+  }
+
+  /**
+   * Forward transform of real samples, keeping the n/2 + 1 unique bins
+   * @param x     n real samples, not modified
+   * @param re    Real parts of bins 0..n/2
+   * @param im    Imaginary parts of bins 0..n/2
+   */
+  public static void realForward(double[] x, double[] re, double[] im) {
+    RealFftPlan.of(x.length).forward(x, re, im);
+  }
+
+  /**
+   * Inverse of {@link #realForward(double[], double[], double[])}, scaled by 1/n
+   * @param re    Real parts of bins 0..n/2, not modified
+   * @param im    Imaginary parts of bins 0..n/2, not modified
+   * @param x     n real samples, overwritten
+   */
+  public static void realInverse(double[] re, double[] im, double[] x) {
+    RealFftPlan.of(x.length).inverse(re, im, x);
+  }
+}
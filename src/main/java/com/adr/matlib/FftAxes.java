@@ -0,0 +1,182 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multi-dimensional and batched FFTs built from 1D plans.
+ *
+ * An array of shape [n0, n1, ..., nk] is stored row-major, so along any axis
+ * it can be viewed as outer x length x inner, with consecutive elements of a
+ * transform inner apart. The last axis (inner = 1) is a batch of contiguous
+ * rows and is transformed in place. For other axes, bands of up to
+ * {@link #BLOCK} neighbouring columns are copied into a scratch buffer,
+ * reading whole runs of each row, transformed there and copied back. That
+ * keeps the strided access out of the butterflies. Rows and column bands are
+ * independent, so they run as tasks on the pool when one is given.
+ */
+final class FftAxes {
+  /** Number of columns gathered into one contiguous buffer */
+  static final int BLOCK = 16;
+
+  /** Approximate number of elements handled by a single task */
+  static final int GRAIN = 1 << 15;
+
+  private FftAxes() {
+  }
+
+  /**
+   * Transform every axis of a row-major array in place
+   * @param pool    Pool running rows and column bands, or null
+   */
+  static void transform(ForkJoinPool pool, double[] re, double[] im, int[] shape, int d) {
+    long total = 1;
+
+    for (int length : shape) {
+      if (length < 1) {
+        throw new IllegalArgumentException("FFT dimensions must be positive, got " + length);
+      }
+
+      total *= length;
+    }
+
+    if (total != re.length || total != im.length) {
+      throw new IllegalArgumentException(String.format("Shape holds %s elements, arrays have length %s and %s", total, re.length, im.length));
+    }
+
+    int inner = 1;
+
+    for (int axis = shape.length - 1; axis >= 0; axis--) {
+      int length = shape[axis];
+      transformAxis(pool, re, im, (int) (total / ((long) length * inner)), length, inner, d);
+      inner *= length;
+    }
+  }
+
+  /**
+   * Transform outer * inner sequences of the given length, element i of
+   * sequence (o, c) being at (o * length + i) * inner + c
+   */
+  static void transformAxis(ForkJoinPool pool, double[] re, double[] im, int outer, int length, int inner, int d) {
+    if (length == 1) {
+      return;
+    }
+
+    FftPlan plan = FftPlan.of(length, d);
+
+    if (inner == 1) {
+      ParallelRange.forRange(pool, 0, outer, Math.max(1, GRAIN / length), (from, to) -> {
+        for (int o = from; o < to; o++) {
+          plan.transform(re, o * length, im, o * length, 1);
+        }
+      });
+      return;
+    }
+
+    int bands = (inner + BLOCK - 1) / BLOCK;
+
+    ParallelRange.forRange(pool, 0, outer * bands, Math.max(1, GRAIN / (length * BLOCK)), (from, to) -> {
+      double[] bufferRe = new double[BLOCK * length];
+      double[] bufferIm = new double[BLOCK * length];
+
+      for (int t = from; t < to; t++) {
+        int o = t / bands;
+        int c0 = (t % bands) * BLOCK;
+        int width = Math.min(BLOCK, inner - c0);
+        int base = o * length * inner + c0;
+
+        for (int i = 0; i < length; i++) {
+          int row = base + i * inner;
+
+          for (int c = 0; c < width; c++) {
+            bufferRe[c * length + i] = re[row + c];
+            bufferIm[c * length + i] = im[row + c];
+          }
+        }
+
+        for (int c = 0; c < width; c++) {
+          plan.transform(bufferRe, c * length, bufferIm, c * length, 1);
+        }
+
+        for (int i = 0; i < length; i++) {
+          int row = base + i * inner;
+
+          for (int c = 0; c < width; c++) {
+            re[row + c] = bufferRe[c * length + i];
+            im[row + c] = bufferIm[c * length + i];
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * 2D transform of jagged rows, all of the same length, in place
+   * @param pool    Pool running rows and column bands, or null
+   */
+  static void transform(ForkJoinPool pool, double[][] re, double[][] im, int d) {
+    int rows = re.length;
+
+    if (im.length != rows) {
+      throw new IllegalArgumentException(String.format("Real part has %s rows, imaginary part has %s rows", rows, im.length));
+    }
+
+    if (rows == 0) {
+      return;
+    }
+
+    int cols = re[0].length;
+
+    for (int i = 0; i < rows; i++) {
+      if (re[i].length != cols || im[i].length != cols) {
+        throw new IllegalArgumentException(String.format("Row %s has length %s and %s, expected %s", i, re[i].length, im[i].length, cols));
+      }
+    }
+
+    if (cols == 0) {
+      return;
+    }
+
+    FftPlan rowPlan = FftPlan.of(cols, d);
+
+    ParallelRange.forRange(pool, 0, rows, Math.max(1, GRAIN / cols), (from, to) -> {
+      for (int i = from; i < to; i++) {
+        rowPlan.transform(re[i], 0, im[i], 0, 1);
+      }
+    });
+
+    if (rows == 1) {
+      return;
+    }
+
+    FftPlan columnPlan = FftPlan.of(rows, d);
+    int bands = (cols + BLOCK - 1) / BLOCK;
+
+    ParallelRange.forRange(pool, 0, bands, Math.max(1, GRAIN / (rows * BLOCK)), (from, to) -> {
+      double[] bufferRe = new double[BLOCK * rows];
+      double[] bufferIm = new double[BLOCK * rows];
+
+      for (int t = from; t < to; t++) {
+        int c0 = t * BLOCK;
+        int width = Math.min(BLOCK, cols - c0);
+
+        for (int i = 0; i < rows; i++) {
+          for (int c = 0; c < width; c++) {
+            bufferRe[c * rows + i] = re[i][c0 + c];
+            bufferIm[c * rows + i] = im[i][c0 + c];
+          }
+        }
+
+        for (int c = 0; c < width; c++) {
+          columnPlan.transform(bufferRe, c * rows, bufferIm, c * rows, 1);
+        }
+
+        for (int i = 0; i < rows; i++) {
+          for (int c = 0; c < width; c++) {
+            re[i][c0 + c] = bufferRe[c * rows + i];
+            im[i][c0 + c] = bufferIm[c * rows + i];
+          }
+        }
+      }
+    });
+  }
+}
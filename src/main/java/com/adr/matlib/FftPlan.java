@@ -0,0 +1,354 @@
+package com.adr.matlib;
+
+/**
+ * Precomputed FFT of one length and direction.
+ *
+ * A plan holds the twiddle factors of every butterfly stage, each computed
+ * directly with sin and cos rather than by repeated multiplication, and the
+ * bit-reversal permutation of its length. Transforming with a plan does no
+ * setup and no allocation. Plans are immutable and can be shared between
+ * threads.
+ *
+ * Any length is supported. Powers of two use decimation in frequency with
+ * radix-4 passes, each doing the work of two radix-2 stages with three
+ * twiddle multiplies instead of four, followed by a radix-2 pass when the
+ * number of stages is odd. The output order is the same as radix-2, so the
+ * bit-reversal permutation is unchanged. Lengths 2, 4 and 8 are handled by
+ * unrolled codelets with no tables or permutation at all. Lengths whose prime
+ * factors are all 2, 3, 5 or 7 use the {@link MixedRadixFft} kernels, and
+ * every other length goes through {@link BluesteinFft}, which costs a few
+ * power of two transforms of at least twice the length. The latter two keep
+ * one set of scratch buffers per thread.
+ *
+ * {@link #of(int, int)} returns plans from a bounded concurrent cache, which
+ * is what {@link Fft} uses, so repeated transforms of the same length build
+ * their tables only once.
+ */
+public final class FftPlan {
+  /** Maximum number of plans kept by {@link #of(int, int)} */
+  public static final int CACHE_SIZE = 32;
+
+  private static final PlanCache<FftPlan> CACHE = new PlanCache<>(CACHE_SIZE);
+
+  // Swaps turning [X0 X2 X4 X6 X1 X3 X5 X7] into natural order
+  private static final int[][] CODELET8_ORDER = {{1, 4}, {2, 4}, {3, 5}, {5, 6}};
+
+  private final int n;
+  private final int d;
+  private final double[] cos;
+  private final double[] sin;
+  private final int[] reversal;
+  private final MixedRadixFft mixedRadix;
+  private final BluesteinFft bluestein;
+
+  /**
+   * Build a plan without caching it
+   * @param n   Transform length
+   * @param d   Direction. 1 for FFT, -1 for inverse FFT
+   */
+  public FftPlan(int n, int d) {
+    if (n < 1) {
+      throw new IllegalArgumentException("FFT length must be positive, got " + n);
+    }
+
+    this.n = n;
+    this.d = d < 0 ? -1 : 1;
+
+    if (Integer.bitCount(n) != 1) {
+      int[] radices = MixedRadixFft.factor(n);
+
+      cos = null;
+      sin = null;
+      reversal = null;
+      mixedRadix = radices != null ? new MixedRadixFft(n, this.d, radices) : null;
+      bluestein = radices == null ? new BluesteinFft(n, this.d) : null;
+
+      return;
+    }
+
+    mixedRadix = null;
+    bluestein = null;
+
+    // w^j = exp(-2 pi i d j / n); a stage of half size r uses w^(m * n / 2r),
+    // and a radix-4 pass also needs w^3m
+    cos = new double[3 * n / 4];
+    sin = new double[3 * n / 4];
+
+    for (int j = 0; j < cos.length; j++) {
+      double angle = -2 * Math.PI * this.d * j / n;
+      cos[j] = Math.cos(angle);
+      sin[j] = Math.sin(angle);
+    }
+
+    reversal = new int[n];
+    int shift = 32 - Integer.numberOfTrailingZeros(n);
+
+    for (int i = 0; i < n && n > 1; i++) {
+      reversal[i] = Integer.reverse(i) >>> shift;
+    }
+  }
+
+  /**
+   * Cached plan for a length and direction
+   * @param n   Transform length
+   * @param d   Direction. 1 for FFT, -1 for inverse FFT
+   * @return    Shared plan
+   */
+  public static FftPlan of(int n, int d) {
+    // The factory rebuilds n and d from the key so it captures nothing and a hit allocates nothing
+    return CACHE.get(((long) n << 1) | (d < 0 ? 1 : 0), key -> new FftPlan((int) (key >>> 1), (key & 1) != 0 ? -1 : 1));
+  }
+
+  static int cachedPlans() {
+    return CACHE.size();
+  }
+
+  public int size() {
+    return n;
+  }
+
+  public int direction() {
+    return d;
+  }
+
+  /**
+   * Transform split arrays in place
+   * @param re    Real parts, length n
+   * @param im    Imaginary parts, length n
+   */
+  public void transform(double[] re, double[] im) {
+    if (re.length != n || im.length != n) {
+      throw new IllegalArgumentException(String.format("Plan of length %s given arrays of length %s and %s", n, re.length, im.length));
+    }
+
+    transform(re, 0, im, 0, 1);
+  }
+
+  /**
+   * Transform an interleaved array in place
+   * @param data    Interleaved real and imaginary parts, length 2n
+   */
+  public void transform(double[] data) {
+    if (data.length != 2 * n) {
+      throw new IllegalArgumentException(String.format("Plan of length %s given interleaved array of length %s", n, data.length));
+    }
+
+    transform(data, 0, data, 1, 2);
+  }
+
+  /**
+   * Transform n strided elements in place, laid out as described in
+   * {@link Fft#transform(double[], int, double[], int, int, int, int)}
+   */
+  public void transform(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    if (mixedRadix != null) {
+      mixedRadix.transform(re, reOffset, im, imOffset, stride);
+    } else if (bluestein != null) {
+      bluestein.transform(re, reOffset, im, imOffset, stride);
+    } else if (n <= 8) {
+      codelet(re, reOffset, im, imOffset, stride);
+    } else {
+      radix4(re, reOffset, im, imOffset, stride);
+      bitReverse(re, reOffset, im, imOffset, stride);
+    }
+
+    if (d < 0) {
+      double factor = 1.0 / n;
+
+      for (int i = 0; i < n; i++) {
+        re[reOffset + i * stride] *= factor;
+        im[imOffset + i * stride] *= factor;
+      }
+    }
+  }
+
+  /**
+   * Radix-2 decimation in frequency with pairs of stages fused. A pass over
+   * blocks of 2r elements combines the stage of half size r, whose twiddles
+   * are w^(ms) and w^((m + r/2)s) = -i d w^(ms), with the stage of half size
+   * r/2, whose twiddles are w^(2ms).
+   */
+  private void radix4(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    int r = n / 2;
+    int step = 1;
+
+    for (; r >= 2; r /= 4, step *= 4) {
+      int q = r / 2;
+
+      for (int k = 0; k < n; k += 2 * r) {
+        for (int m = 0; m < q; m++) {
+          int a0 = (k + m) * stride;
+          int a1 = a0 + q * stride;
+          int a2 = a1 + q * stride;
+          int a3 = a2 + q * stride;
+
+          double sumRe = re[reOffset + a0] + re[reOffset + a2];
+          double sumIm = im[imOffset + a0] + im[imOffset + a2];
+          double oddSumRe = re[reOffset + a1] + re[reOffset + a3];
+          double oddSumIm = im[imOffset + a1] + im[imOffset + a3];
+          double difRe = re[reOffset + a0] - re[reOffset + a2];
+          double difIm = im[imOffset + a0] - im[imOffset + a2];
+
+          // -i d (x1 - x3)
+          double rotRe = d * (im[imOffset + a1] - im[imOffset + a3]);
+          double rotIm = -d * (re[reOffset + a1] - re[reOffset + a3]);
+
+          int w = m * step;
+          double b1r = sumRe - oddSumRe;
+          double b1i = sumIm - oddSumIm;
+          double b2r = difRe + rotRe;
+          double b2i = difIm + rotIm;
+          double b3r = difRe - rotRe;
+          double b3i = difIm - rotIm;
+
+          re[reOffset + a0] = sumRe + oddSumRe;
+          im[imOffset + a0] = sumIm + oddSumIm;
+          re[reOffset + a1] = b1r * cos[2 * w] - b1i * sin[2 * w];
+          im[imOffset + a1] = b1r * sin[2 * w] + b1i * cos[2 * w];
+          re[reOffset + a2] = b2r * cos[w] - b2i * sin[w];
+          im[imOffset + a2] = b2r * sin[w] + b2i * cos[w];
+          re[reOffset + a3] = b3r * cos[3 * w] - b3i * sin[3 * w];
+          im[imOffset + a3] = b3r * sin[3 * w] + b3i * cos[3 * w];
+        }
+      }
+    }
+
+    // Odd number of stages, the last has half size 1 and no twiddles
+    if (r == 1) {
+      for (int k = 0; k < n; k += 2) {
+        int a = k * stride;
+        int b = a + stride;
+
+        double tr = re[reOffset + a] - re[reOffset + b];
+        double ti = im[imOffset + a] - im[imOffset + b];
+        re[reOffset + a] += re[reOffset + b];
+        im[imOffset + a] += im[imOffset + b];
+        re[reOffset + b] = tr;
+        im[imOffset + b] = ti;
+      }
+    }
+  }
+
+  /**
+   * Unrolled transforms of length 1, 2, 4 and 8 with output in natural order
+   */
+  private void codelet(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    if (n == 1) {
+      return;
+    }
+
+    if (n == 2) {
+      int b = stride;
+      double tr = re[reOffset] - re[reOffset + b];
+      double ti = im[imOffset] - im[imOffset + b];
+      re[reOffset] += re[reOffset + b];
+      im[imOffset] += im[imOffset + b];
+      re[reOffset + b] = tr;
+      im[imOffset + b] = ti;
+      return;
+    }
+
+    if (n == 4) {
+      dft4(re, reOffset, im, imOffset, stride);
+      return;
+    }
+
+    // n == 8: one radix-2 stage into the even and odd halves, then two length 4 transforms
+    double h = Math.sqrt(0.5);
+
+    for (int m = 0; m < 4; m++) {
+      int a = m * stride;
+      int b = (m + 4) * stride;
+
+      double tr = re[reOffset + a] - re[reOffset + b];
+      double ti = im[imOffset + a] - im[imOffset + b];
+      re[reOffset + a] += re[reOffset + b];
+      im[imOffset + a] += im[imOffset + b];
+
+      // w^m for w = exp(-i pi d / 4)
+      switch (m) {
+        case 0:
+          re[reOffset + b] = tr;
+          im[imOffset + b] = ti;
+          break;
+        case 1:
+          re[reOffset + b] = h * (tr + d * ti);
+          im[imOffset + b] = h * (ti - d * tr);
+          break;
+        case 2:
+          re[reOffset + b] = d * ti;
+          im[imOffset + b] = -d * tr;
+          break;
+        default:
+          re[reOffset + b] = h * (d * ti - tr);
+          im[imOffset + b] = -h * (ti + d * tr);
+          break;
+      }
+    }
+
+    dft4(re, reOffset, im, imOffset, stride);
+    dft4(re, reOffset + 4 * stride, im, imOffset + 4 * stride, stride);
+
+    // X[2k] is in the first half and X[2k + 1] in the second; interleave them
+    for (int[] swap : CODELET8_ORDER) {
+      int a = swap[0] * stride;
+      int b = swap[1] * stride;
+
+      double t = re[reOffset + a];
+      re[reOffset + a] = re[reOffset + b];
+      re[reOffset + b] = t;
+
+      t = im[imOffset + a];
+      im[imOffset + a] = im[imOffset + b];
+      im[imOffset + b] = t;
+    }
+  }
+
+  private void dft4(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    int a0 = reOffset;
+    int a1 = a0 + stride;
+    int a2 = a1 + stride;
+    int a3 = a2 + stride;
+    int b0 = imOffset;
+    int b1 = b0 + stride;
+    int b2 = b1 + stride;
+    int b3 = b2 + stride;
+
+    double sumRe = re[a0] + re[a2];
+    double sumIm = im[b0] + im[b2];
+    double difRe = re[a0] - re[a2];
+    double difIm = im[b0] - im[b2];
+    double oddSumRe = re[a1] + re[a3];
+    double oddSumIm = im[b1] + im[b3];
+    double rotRe = d * (im[b1] - im[b3]);
+    double rotIm = -d * (re[a1] - re[a3]);
+
+    re[a0] = sumRe + oddSumRe;
+    im[b0] = sumIm + oddSumIm;
+    re[a1] = difRe + rotRe;
+    im[b1] = difIm + rotIm;
+    re[a2] = sumRe - oddSumRe;
+    im[b2] = sumIm - oddSumIm;
+    re[a3] = difRe - rotRe;
+    im[b3] = difIm - rotIm;
+  }
+
+  private void bitReverse(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    for (int i = 0; i < n; i++) {
+      int k = reversal[i];
+
+      if (k > i) {
+        int a = i * stride;
+        int b = k * stride;
+
+        double t = re[reOffset + a];
+        re[reOffset + a] = re[reOffset + b];
+        re[reOffset + b] = t;
+
+        t = im[imOffset + a];
+        im[imOffset + a] = im[imOffset + b];
+        im[imOffset + b] = t;
+      }
+    }
+  }
+}
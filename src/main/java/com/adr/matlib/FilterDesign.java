@@ -0,0 +1,223 @@
+package com.adr.matlib;
+
+/**
+ * Streaming counterparts of the low pass, high pass, band pass and notch
+ * masks in {@link MatLib}.
+ *
+ * Frequencies are fractions of the sample rate in (0, 0.5). The mask of
+ * {@link MatLib#lowPassFilter(double[], int)} that keeps n bins of a buffer
+ * of length N corresponds to a cutoff of n / N.
+ *
+ * The IIR designs are Butterworth cascades built from the bilinear-transform
+ * biquads of R. Bristow-Johnson's audio EQ cookbook; the band pass is a high
+ * pass followed by a low pass, and the notch is a single band stop section.
+ * The FIR designs are windowed sincs with unit gain in the pass band. High
+ * pass and notch FIRs are made by spectral inversion and need an odd number
+ * of taps.
+ */
+public final class FilterDesign {
+  private FilterDesign() {
+  }
+
+  /**
+   * Butterworth low pass
+   * @param cutoff      -3 dB frequency
+   * @param sections    Number of biquads; the order is twice this
+   * @return            Filter starting from silence
+   */
+  public static BiquadFilter lowPass(double cutoff, int sections) {
+    return butterworth(cutoff, sections, false);
+  }
+
+  /**
+   * Butterworth high pass
+   * @param cutoff      -3 dB frequency
+   * @param sections    Number of biquads; the order is twice this
+   * @return            Filter starting from silence
+   */
+  public static BiquadFilter highPass(double cutoff, int sections) {
+    return butterworth(cutoff, sections, true);
+  }
+
+  /**
+   * Butterworth band pass, a high pass at lower followed by a low pass at upper
+   * @param lower       Lower -3 dB frequency
+   * @param upper       Upper -3 dB frequency
+   * @param sections    Number of biquads of each of the two filters
+   * @return            Filter starting from silence
+   */
+  public static BiquadFilter bandPass(double lower, double upper, int sections) {
+    checkBand(lower, upper);
+
+    return highPass(lower, sections).then(lowPass(upper, sections));
+  }
+
+  /**
+   * Second-order band stop with its -3 dB edges near lower and upper
+   * @param lower   Lower edge of the rejected band
+   * @param upper   Upper edge of the rejected band
+   * @return        Filter starting from silence
+   */
+  public static BiquadFilter notch(double lower, double upper) {
+    checkBand(lower, upper);
+
+    double center = (lower + upper) / 2;
+    double w = 2 * Math.PI * center;
+    double cos = Math.cos(w);
+    double alpha = Math.sin(w) * (upper - lower) / (2 * center);
+
+    return new BiquadFilter(new double[][]{normalize(1, -2 * cos, 1, 1 + alpha, -2 * cos, 1 - alpha)});
+  }
+
+  /**
+   * Windowed-sinc low pass
+   * @param cutoff    Frequency of half amplitude
+   * @param taps      Number of coefficients
+   * @param window    Taper applied to the sinc
+   * @return          Filter starting from silence
+   */
+  public static FirFilter firLowPass(double cutoff, int taps, Window window) {
+    return new FirFilter(sinc(cutoff, taps, window));
+  }
+
+  /**
+   * Windowed-sinc high pass
+   * @param cutoff    Frequency of half amplitude
+   * @param taps      Odd number of coefficients
+   * @param window    Taper applied to the sinc
+   * @return          Filter starting from silence
+   */
+  public static FirFilter firHighPass(double cutoff, int taps, Window window) {
+    checkOdd(taps);
+
+    return new FirFilter(invert(sinc(cutoff, taps, window)));
+  }
+
+  /**
+   * Windowed-sinc band pass, the difference of two low passes
+   * @param lower     Lower frequency of half amplitude
+   * @param upper     Upper frequency of half amplitude
+   * @param taps      Number of coefficients
+   * @param window    Taper applied to the sincs
+   * @return          Filter starting from silence
+   */
+  public static FirFilter firBandPass(double lower, double upper, int taps, Window window) {
+    return new FirFilter(band(lower, upper, taps, window));
+  }
+
+  /**
+   * Windowed-sinc band stop, the spectral inverse of the band pass
+   * @param lower     Lower edge of the rejected band
+   * @param upper     Upper edge of the rejected band
+   * @param taps      Odd number of coefficients
+   * @param window    Taper applied to the sincs
+   * @return          Filter starting from silence
+   */
+  public static FirFilter firNotch(double lower, double upper, int taps, Window window) {
+    checkOdd(taps);
+
+    return new FirFilter(invert(band(lower, upper, taps, window)));
+  }
+
+  private static BiquadFilter butterworth(double cutoff, int sections, boolean high) {
+    checkFrequency(cutoff);
+
+    if (sections < 1) {
+      throw new IllegalArgumentException("Filter needs at least one section, got " + sections);
+    }
+
+    double w = 2 * Math.PI * cutoff;
+    double cos = Math.cos(w);
+    double sin = Math.sin(w);
+    double[][] biquads = new double[sections][];
+
+    for (int k = 0; k < sections; k++) {
+      // Pole pair k of a Butterworth filter of order 2 * sections
+      double q = 1 / (2 * Math.sin(Math.PI * (2 * k + 1) / (4 * sections)));
+      double alpha = sin / (2 * q);
+      double b = high ? (1 + cos) / 2 : (1 - cos) / 2;
+
+      biquads[k] = normalize(b, high ? -2 * b : 2 * b, b, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    return new BiquadFilter(biquads);
+  }
+
+  private static double[] normalize(double b0, double b1, double b2, double a0, double a1, double a2) {
+    return new double[]{b0 / a0, b1 / a0, b2 / a0, a1 / a0, a2 / a0};
+  }
+
+  private static double[] band(double lower, double upper, int taps, Window window) {
+    checkBand(lower, upper);
+
+    double[] h = sinc(upper, taps, window);
+    double[] low = sinc(lower, taps, window);
+
+    for (int i = 0; i < taps; i++) {
+      h[i] -= low[i];
+    }
+
+    return h;
+  }
+
+  /**
+   * Windowed ideal low pass scaled to unit gain at DC
+   */
+  private static double[] sinc(double cutoff, int taps, Window window) {
+    checkFrequency(cutoff);
+
+    if (taps < 1) {
+      throw new IllegalArgumentException("Filter needs at least one tap, got " + taps);
+    }
+
+    double[] h = window.symmetric(taps);
+    double middle = (taps - 1) / 2.0;
+    double sum = 0;
+
+    for (int i = 0; i < taps; i++) {
+      double t = i - middle;
+      h[i] *= t == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * t) / (Math.PI * t);
+      sum += h[i];
+    }
+
+    for (int i = 0; i < taps; i++) {
+      h[i] /= sum;
+    }
+
+    return h;
+  }
+
+  /**
+   * Delta minus h: pass band and stop band swap places
+   */
+  private static double[] invert(double[] h) {
+    for (int i = 0; i < h.length; i++) {
+      h[i] = -h[i];
+    }
+
+    h[h.length / 2] += 1;
+
+    return h;
+  }
+
+  private static void checkFrequency(double frequency) {
+    if (!(frequency > 0 && frequency < 0.5)) {
+      throw new IllegalArgumentException("Frequency must be in (0, 0.5) of the sample rate, got " + frequency);
+    }
+  }
+
+  private static void checkBand(double lower, double upper) {
+    checkFrequency(lower);
+    checkFrequency(upper);
+
+    if (lower >= upper) {
+      throw new IllegalArgumentException(String.format("Band from %s to %s is empty", lower, upper));
+    }
+  }
+
+  private static void checkOdd(int taps) {
+    if (taps % 2 == 0) {
+      throw new IllegalArgumentException("Spectral inversion needs an odd number of taps, got " + taps);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Streaming FIR filter y[t] = sum_k h[k] x[t - k] evaluated directly.
+ *
+ * Past inputs are kept in a ring stored twice over, so the m most recent
+ * samples are always contiguous and each output is one unbroken dot product
+ * with the taps. That costs m multiply-adds per sample with no latency; for
+ * kernels of more than about a hundred taps an {@link OverlapSaveConvolver}
+ * is cheaper per sample but works in blocks.
+ */
+public final class FirFilter implements StreamFilter {
+  private final double[] taps;
+  private final double[] delay;
+  private int position;
+
+  /**
+   * @param taps    FIR coefficients h[0..m-1]
+   */
+  public FirFilter(double[] taps) {
+    if (taps.length == 0) {
+      throw new IllegalArgumentException("FIR filter needs at least one tap");
+    }
+
+    this.taps = taps.clone();
+    this.delay = new double[2 * taps.length];
+  }
+
+  /**
+   * @return    Copy of the coefficients
+   */
+  public double[] taps() {
+    return taps.clone();
+  }
+
+  @Override
+  public double process(double sample) {
+    int m = taps.length;
+    position = (position == 0 ? m : position) - 1;
+    delay[position] = sample;
+    delay[position + m] = sample;
+
+    // delay[position + k] holds x[t - k]
+    double sum = 0;
+
+    for (int k = 0; k < m; k++) {
+      sum += taps[k] * delay[position + k];
+    }
+
+    return sum;
+  }
+
+  @Override
+  public void reset() {
+    Arrays.fill(delay, 0);
+    position = 0;
+  }
+}
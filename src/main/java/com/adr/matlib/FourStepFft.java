@@ -0,0 +1,160 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel FFT of a large length n = n1 * n2 by the six-step algorithm.
+ *
+ * The sequence is viewed as an n1 x n2 row-major matrix. It is transposed so
+ * that its columns become contiguous rows, the n2 rows of length n1 are
+ * transformed and multiplied by the twiddles W^(row * col), transposed back,
+ * the n1 rows of length n2 are transformed, and a last transpose puts the
+ * output in natural order. Each row transform touches only about sqrt(n)
+ * elements, so it runs in cache, and the rows of every step are independent
+ * tasks on the fork-join pool. Transposes work on square tiles for the same
+ * reason.
+ *
+ * The twiddles W^j, j < n, are factored as W^(q n1) * W^r with r < n1, so the
+ * tables hold n1 + n2 entries instead of n. Each call allocates one scratch
+ * buffer of n complex values.
+ */
+final class FourStepFft {
+  private static final PlanCache<FourStepFft> CACHE = new PlanCache<>(FftPlan.CACHE_SIZE);
+
+  /** Side of the square tiles used by the transposes */
+  static final int TILE = 32;
+
+  /** Approximate number of elements handled by a single task */
+  static final int GRAIN = 1 << 14;
+
+  private final int n;
+  private final int n1;
+  private final int n2;
+  private final FftPlan columns;
+  private final FftPlan rows;
+  private final double[] fineRe;
+  private final double[] fineIm;
+  private final double[] coarseRe;
+  private final double[] coarseIm;
+
+  private FourStepFft(int n, int d) {
+    this.n = n;
+    this.n1 = split(n);
+    this.n2 = n / n1;
+    this.columns = FftPlan.of(n1, d);
+    this.rows = FftPlan.of(n2, d);
+
+    int sign = d < 0 ? -1 : 1;
+
+    fineRe = new double[n1];
+    fineIm = new double[n1];
+    coarseRe = new double[n2];
+    coarseIm = new double[n2];
+
+    for (int r = 0; r < n1; r++) {
+      double angle = -2 * Math.PI * sign * r / n;
+      fineRe[r] = Math.cos(angle);
+      fineIm[r] = Math.sin(angle);
+    }
+
+    for (int q = 0; q < n2; q++) {
+      double angle = -2 * Math.PI * sign * q / n2;
+      coarseRe[q] = Math.cos(angle);
+      coarseIm[q] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * Cached plan, or null when n has no useful factorization
+   */
+  static FourStepFft of(int n, int d) {
+    if (split(n) < 2) {
+      return null;
+    }
+
+    return CACHE.get(((long) n << 1) | (d < 0 ? 1 : 0), key -> new FourStepFft((int) (key >>> 1), (key & 1) != 0 ? -1 : 1));
+  }
+
+  /**
+   * Largest divisor of n that is at most sqrt(n)
+   */
+  static int split(int n) {
+    for (int n1 = (int) Math.sqrt(n); n1 > 1; n1--) {
+      if (n % n1 == 0) {
+        return n1;
+      }
+    }
+
+    return 1;
+  }
+
+  void transform(ForkJoinPool pool, double[] re, double[] im) {
+    double[] tRe = new double[n];
+    double[] tIm = new double[n];
+
+    // n1 x n2 -> n2 x n1, then transform every former column and apply twiddles
+    transpose(pool, re, im, tRe, tIm, n1, n2);
+    ParallelRange.forRange(pool, 0, n2, Math.max(1, GRAIN / n1), (from, to) -> {
+      for (int row = from; row < to; row++) {
+        columns.transform(tRe, row * n1, tIm, row * n1, 1);
+        twiddle(tRe, tIm, row);
+      }
+    });
+
+    // n2 x n1 -> n1 x n2, then transform the rows
+    transpose(pool, tRe, tIm, re, im, n2, n1);
+    ParallelRange.forRange(pool, 0, n1, Math.max(1, GRAIN / n2), (from, to) -> {
+      for (int row = from; row < to; row++) {
+        rows.transform(re, row * n2, im, row * n2, 1);
+      }
+    });
+
+    // X[k1 + n1 k2] is at [k1][k2]
+    transpose(pool, re, im, tRe, tIm, n1, n2);
+    System.arraycopy(tRe, 0, re, 0, n);
+    System.arraycopy(tIm, 0, im, 0, n);
+  }
+
+  // Multiply element k of a row by W^(row * k)
+  private void twiddle(double[] re, double[] im, int row) {
+    int offset = row * n1;
+
+    for (int k = 1; k < n1; k++) {
+      int j = row * k;
+      int q = j / n1;
+      int r = j - q * n1;
+
+      double wr = coarseRe[q] * fineRe[r] - coarseIm[q] * fineIm[r];
+      double wi = coarseRe[q] * fineIm[r] + coarseIm[q] * fineRe[r];
+
+      double xr = re[offset + k];
+      double xi = im[offset + k];
+      re[offset + k] = xr * wr - xi * wi;
+      im[offset + k] = xr * wi + xi * wr;
+    }
+  }
+
+  /**
+   * Out of place transpose of a rows x cols matrix, one band of TILE rows per piece
+   */
+  private static void transpose(ForkJoinPool pool, double[] re, double[] im, double[] tRe, double[] tIm, int rows, int cols) {
+    int bands = (rows + TILE - 1) / TILE;
+
+    ParallelRange.forRange(pool, 0, bands, Math.max(1, GRAIN / (TILE * cols)), (from, to) -> {
+      for (int i0 = from * TILE; i0 < Math.min(rows, to * TILE); i0 += TILE) {
+        int i1 = Math.min(rows, i0 + TILE);
+
+        for (int j0 = 0; j0 < cols; j0 += TILE) {
+          int j1 = Math.min(cols, j0 + TILE);
+
+          for (int i = i0; i < i1; i++) {
+            for (int j = j0; j < j1; j++) {
+              tRe[j * rows + i] = re[i * cols + j];
+              tIm[j * rows + i] = im[i * cols + j];
+            }
+          }
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,296 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cache-blocked general matrix multiply, C += alpha * A * B.
+ *
+ * The k dimension is cut into panels of KC, B panels are packed into NR wide
+ * column strips and A blocks into MR tall row strips so that a 4 x 4 register
+ * micro-kernel streams both operands from contiguous memory. Small problems
+ * skip packing and use a plain i-k-j loop.
+ *
+ * For a given problem the order in which products are summed into C(i, j)
+ * depends only on k, never on how the rows and columns of C are divided up,
+ * so any block of C can be computed independently with identical results.
+ */
+final class Gemm {
+  static final int MR = 4;
+  static final int NR = 4;
+  static final int MC = 96;
+  static final int KC = 256;
+  static final int NC = 1024;
+
+  /** Problems with fewer multiply-adds than this use the unpacked loop */
+  static final long BLOCKED_THRESHOLD = 32L * 32 * 32;
+
+  /** Blocks of C at or below this many elements are not split further */
+  static final int LEAF_SIZE = 128 * 128;
+
+  private Gemm() {
+  }
+
+  static boolean useBlocked(int m, int n, int k) {
+    return (long) m * n * k >= BLOCKED_THRESHOLD;
+  }
+
+  /**
+   * C += alpha * A * B. C must not share storage with A or B.
+   * @param alpha   Scalar applied to the product
+   * @param a       m x k matrix
+   * @param b       k x n matrix
+   * @param c       m x n matrix, updated in place
+   */
+  static void multiply(double alpha, DenseMatrix a, DenseMatrix b, DenseMatrix c) {
+    multiply(alpha, a, b, c, 0, c.rows, 0, c.cols, useBlocked(c.rows, c.cols, a.cols));
+  }
+
+  /**
+   * C += alpha * A * B, splitting C into blocks computed on pool. Problems
+   * with fewer than threshold multiply-adds run on the calling thread. The
+   * result is identical to {@link #multiply(double, DenseMatrix, DenseMatrix, DenseMatrix)}.
+   * @param pool        Pool running the blocks
+   * @param threshold   Minimum number of multiply-adds worth splitting
+   */
+  static void multiply(ForkJoinPool pool, long threshold, double alpha, DenseMatrix a, DenseMatrix b, DenseMatrix c) {
+    boolean blocked = useBlocked(c.rows, c.cols, a.cols);
+
+    if ((long) c.rows * c.cols * a.cols < threshold) {
+      multiply(alpha, a, b, c, 0, c.rows, 0, c.cols, blocked);
+      return;
+    }
+
+    pool.invoke(new BlockTask(alpha, a, b, c, 0, c.rows, 0, c.cols, blocked));
+  }
+
+  /**
+   * Update the block C[rowFrom, rowTo) x [colFrom, colTo) of C += alpha * A * B.
+   * @param blocked   Kernel selected for the whole problem by {@link #useBlocked}
+   */
+  static void multiply(double alpha, DenseMatrix a, DenseMatrix b, DenseMatrix c,
+                       int rowFrom, int rowTo, int colFrom, int colTo, boolean blocked) {
+    if (rowTo <= rowFrom || colTo <= colFrom || a.cols == 0 || alpha == 0) {
+      return;
+    }
+
+    if (!blocked) {
+      multiplySimple(alpha, a, b, c, rowFrom, rowTo, colFrom, colTo);
+      return;
+    }
+
+    int k = a.cols;
+    int kc = Math.min(KC, k);
+    double[] aPack = new double[roundUp(Math.min(MC, rowTo - rowFrom), MR) * kc];
+    double[] bPack = new double[roundUp(Math.min(NC, colTo - colFrom), NR) * kc];
+
+    for (int jc = colFrom; jc < colTo; jc += NC) {
+      int nc = Math.min(NC, colTo - jc);
+
+      for (int pc = 0; pc < k; pc += KC) {
+        int pk = Math.min(KC, k - pc);
+        packB(b, pc, pk, jc, nc, bPack);
+
+        for (int ic = rowFrom; ic < rowTo; ic += MC) {
+          int mc = Math.min(MC, rowTo - ic);
+          packA(a, ic, mc, pc, pk, aPack);
+
+          for (int jr = 0; jr < nc; jr += NR) {
+            int nr = Math.min(NR, nc - jr);
+
+            for (int ir = 0; ir < mc; ir += MR) {
+              int mr = Math.min(MR, mc - ir);
+              kernel(pk, alpha, aPack, ir * pk, bPack, jr * pk, c, ic + ir, mr, jc + jr, nr);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void multiplySimple(double alpha, DenseMatrix a, DenseMatrix b, DenseMatrix c,
+                                     int rowFrom, int rowTo, int colFrom, int colTo) {
+    for (int i = rowFrom; i < rowTo; i++) {
+      int ci = c.index(i, 0);
+
+      for (int p = 0; p < a.cols; p++) {
+        double aip = alpha * a.get(i, p);
+        int bp = b.index(p, 0);
+
+        for (int j = colFrom; j < colTo; j++) {
+          c.data[ci + j * c.colStride] += aip * b.data[bp + j * b.colStride];
+        }
+      }
+    }
+  }
+
+  /**
+   * Pack A[row, row + mc) x [col, col + kc) into MR tall strips, each stored
+   * column by column. Rows past the edge of A are zero filled.
+   */
+  private static void packA(DenseMatrix a, int row, int mc, int col, int kc, double[] pack) {
+    int idx = 0;
+
+    for (int ir = 0; ir < mc; ir += MR) {
+      for (int p = 0; p < kc; p++) {
+        for (int r = 0; r < MR; r++) {
+          pack[idx++] = ir + r < mc ? a.data[a.index(row + ir + r, col + p)] : 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Pack B[row, row + kc) x [col, col + nc) into NR wide strips, each stored
+   * row by row. Columns past the edge of B are zero filled.
+   */
+  private static void packB(DenseMatrix b, int row, int kc, int col, int nc, double[] pack) {
+    int idx = 0;
+
+    for (int jr = 0; jr < nc; jr += NR) {
+      int nr = Math.min(NR, nc - jr);
+
+      for (int p = 0; p < kc; p++) {
+        int bp = b.index(row + p, col + jr);
+
+        for (int c = 0; c < NR; c++) {
+          pack[idx++] = c < nr ? b.data[bp + c * b.colStride] : 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * 4 x 4 register blocked micro-kernel. Accumulates one strip of A times one
+   * strip of B and adds alpha times the result into the mr x nr corner of C.
+   */
+  private static void kernel(int kc, double alpha, double[] a, int aOff, double[] b, int bOff,
+                             DenseMatrix c, int row, int mr, int col, int nr) {
+    double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+    double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+    double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+    double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+    for (int p = 0; p < kc; p++) {
+      double a0 = a[aOff];
+      double a1 = a[aOff + 1];
+      double a2 = a[aOff + 2];
+      double a3 = a[aOff + 3];
+      double b0 = b[bOff];
+      double b1 = b[bOff + 1];
+      double b2 = b[bOff + 2];
+      double b3 = b[bOff + 3];
+
+      c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+      c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+      c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+      c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+
+      aOff += MR;
+      bOff += NR;
+    }
+
+    if (mr == MR && nr == NR && c.colStride == 1) {
+      double[] data = c.data;
+      int r0 = c.index(row, col);
+      int r1 = r0 + c.rowStride;
+      int r2 = r1 + c.rowStride;
+      int r3 = r2 + c.rowStride;
+
+      data[r0] += alpha * c00; data[r0 + 1] += alpha * c01; data[r0 + 2] += alpha * c02; data[r0 + 3] += alpha * c03;
+      data[r1] += alpha * c10; data[r1 + 1] += alpha * c11; data[r1 + 2] += alpha * c12; data[r1 + 3] += alpha * c13;
+      data[r2] += alpha * c20; data[r2 + 1] += alpha * c21; data[r2 + 2] += alpha * c22; data[r2 + 3] += alpha * c23;
+      data[r3] += alpha * c30; data[r3 + 1] += alpha * c31; data[r3 + 2] += alpha * c32; data[r3 + 3] += alpha * c33;
+      return;
+    }
+
+    // Partial edge tile or strided C: write the mr x nr corner straight from the accumulators
+    addRow(c, row, col, nr, alpha, c00, c01, c02, c03);
+
+    if (mr > 1) {
+      addRow(c, row + 1, col, nr, alpha, c10, c11, c12, c13);
+    }
+
+    if (mr > 2) {
+      addRow(c, row + 2, col, nr, alpha, c20, c21, c22, c23);
+    }
+
+    if (mr > 3) {
+      addRow(c, row + 3, col, nr, alpha, c30, c31, c32, c33);
+    }
+  }
+
+  /**
+   * Add alpha times the first nr of x0..x3 into row of C starting at col
+   */
+  private static void addRow(DenseMatrix c, int row, int col, int nr, double alpha,
+                             double x0, double x1, double x2, double x3) {
+    int i = c.index(row, col);
+    c.data[i] += alpha * x0;
+
+    if (nr > 1) {
+      c.data[i + c.colStride] += alpha * x1;
+    }
+
+    if (nr > 2) {
+      c.data[i + 2 * c.colStride] += alpha * x2;
+    }
+
+    if (nr > 3) {
+      c.data[i + 3 * c.colStride] += alpha * x3;
+    }
+  }
+
+  private static final class BlockTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final double alpha;
+    private final DenseMatrix a;
+    private final DenseMatrix b;
+    private final DenseMatrix c;
+    private final int rowFrom;
+    private final int rowTo;
+    private final int colFrom;
+    private final int colTo;
+    private final boolean blocked;
+
+    BlockTask(double alpha, DenseMatrix a, DenseMatrix b, DenseMatrix c,
+              int rowFrom, int rowTo, int colFrom, int colTo, boolean blocked) {
+      this.alpha = alpha;
+      this.a = a;
+      this.b = b;
+      this.c = c;
+      this.rowFrom = rowFrom;
+      this.rowTo = rowTo;
+      this.colFrom = colFrom;
+      this.colTo = colTo;
+      this.blocked = blocked;
+    }
+
+    @Override
+    protected void compute() {
+      int rows = rowTo - rowFrom;
+      int cols = colTo - colFrom;
+
+      if ((long) rows * cols <= LEAF_SIZE || (rows <= MR && cols <= NR)) {
+        multiply(alpha, a, b, c, rowFrom, rowTo, colFrom, colTo, blocked);
+        return;
+      }
+
+      // Split the longer side on a micro-tile boundary
+      if (rows >= cols) {
+        int mid = rowFrom + roundUp(rows / 2, MR);
+        invokeAll(new BlockTask(alpha, a, b, c, rowFrom, mid, colFrom, colTo, blocked),
+            new BlockTask(alpha, a, b, c, mid, rowTo, colFrom, colTo, blocked));
+      } else {
+        int mid = colFrom + roundUp(cols / 2, NR);
+        invokeAll(new BlockTask(alpha, a, b, c, rowFrom, rowTo, colFrom, mid, blocked),
+            new BlockTask(alpha, a, b, c, rowFrom, rowTo, mid, colTo, blocked));
+      }
+    }
+  }
+
+  private static int roundUp(int value, int multiple) {
+    return (value + multiple - 1) / multiple * multiple;
+  }
+}
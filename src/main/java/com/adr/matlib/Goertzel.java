@@ -0,0 +1,141 @@
+package com.adr.matlib;
+
+/**
+ * Selected bins of the DFT of fixed-length blocks, by the Goertzel algorithm.
+ *
+ * Bin k of n samples is X[k] = sum_j x[j] exp(-2 pi i j k / n), the same
+ * value a forward {@link Fft} would produce. Each bin runs the real
+ * recurrence s[j] = x[j] + 2 cos(w) s[j - 1] - s[j - 2] with w = 2 pi k / n
+ * and finishes with one complex rotation, so K bins of n samples cost about
+ * K n multiply-adds and no allocation. That beats a full transform whenever
+ * K is below about log2(n).
+ *
+ * A Goertzel is immutable and can be shared between threads, for example to
+ * evaluate the same bins on many channels.
+ */
+public final class Goertzel {
+  private final int n;
+  private final int[] bins;
+  private final double[] cos;
+  private final double[] sin;
+
+  /**
+   * @param length    Samples per block
+   * @param bins      Bin indices to evaluate, each in [0, length)
+   */
+  public Goertzel(int length, int[] bins) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Block length must be positive, got " + length);
+    }
+
+    this.n = length;
+    this.bins = bins.clone();
+    this.cos = new double[bins.length];
+    this.sin = new double[bins.length];
+
+    for (int i = 0; i < bins.length; i++) {
+      if (bins[i] < 0 || bins[i] >= length) {
+        throw new IllegalArgumentException(String.format("Bin %s outside a block of %s samples", bins[i], length));
+      }
+
+      double angle = 2 * Math.PI * bins[i] / length;
+      cos[i] = Math.cos(angle);
+      sin[i] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * @return    Samples per block
+   */
+  public int length() {
+    return n;
+  }
+
+  /**
+   * @return    Number of bins evaluated
+   */
+  public int size() {
+    return bins.length;
+  }
+
+  /**
+   * @param i   Position in the bin list
+   * @return    Bin index
+   */
+  public int bin(int i) {
+    return bins[i];
+  }
+
+  /**
+   * Evaluate every bin of x[0..length-1]
+   * @param x     Block of samples
+   * @param re    Real parts, one per bin, overwritten
+   * @param im    Imaginary parts, one per bin, overwritten
+   */
+  public void transform(double[] x, double[] re, double[] im) {
+    transform(x, 0, re, im);
+  }
+
+  /**
+   * Evaluate every bin of x[offset..offset+length-1]
+   * @param x         Samples
+   * @param offset    Index of the first sample of the block
+   * @param re        Real parts, one per bin, overwritten
+   * @param im        Imaginary parts, one per bin, overwritten
+   */
+  public void transform(double[] x, int offset, double[] re, double[] im) {
+    if (offset < 0 || x.length - offset < n || re.length < bins.length || im.length < bins.length) {
+      throw new IllegalArgumentException(String.format("Goertzel of %s bins of %s samples given %s samples from %s", bins.length, n, x.length, offset));
+    }
+
+    for (int i = 0; i < bins.length; i++) {
+      double coefficient = 2 * cos[i];
+      double s1 = 0;
+      double s2 = 0;
+
+      for (int j = offset; j < offset + n; j++) {
+        double s = x[j] + coefficient * s1 - s2;
+        s2 = s1;
+        s1 = s;
+      }
+
+      // X[k] = exp(i w) s[n - 1] - s[n - 2]
+      re[i] = cos[i] * s1 - s2;
+      im[i] = sin[i] * s1;
+    }
+  }
+
+  /**
+   * Squared magnitude |X[k]|^2 of every bin of x[0..length-1]
+   * @param x       Block of samples
+   * @param power   One value per bin, overwritten
+   */
+  public void power(double[] x, double[] power) {
+    if (x.length < n || power.length < bins.length) {
+      throw new IllegalArgumentException(String.format("Goertzel of %s bins of %s samples given %s samples", bins.length, n, x.length));
+    }
+
+    for (int i = 0; i < bins.length; i++) {
+      double coefficient = 2 * cos[i];
+      double s1 = 0;
+      double s2 = 0;
+
+      for (int j = 0; j < n; j++) {
+        double s = x[j] + coefficient * s1 - s2;
+        s2 = s1;
+        s1 = s;
+      }
+
+      // |exp(i w) s1 - s2|^2 needs no sine
+      power[i] = s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+    }
+  }
+
+  double cos(int i) {
+    return cos[i];
+  }
+
+  double sin(int i) {
+    return sin[i];
+  }
+}
@@ -0,0 +1,291 @@
+package com.adr.matlib;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+
+/**
+ * LU factorization with partial pivoting, PA = LU.
+ *
+ * The matrix is factored once in O(n^3); every later solve costs O(n^2) per
+ * right hand side. Pivots are chosen the same way as
+ * {@link MatLib#computePivot(DenseMatrix, int)}, so the factors match the
+ * reduction performed by {@link MatLib#gaussianElimination(double[][], double[][])}.
+ */
+public final class LUDecomposition implements Factorization {
+  private final int n;
+  private final DenseMatrix lu;
+  private final int[] pivot;
+  private final boolean evenSwaps;
+  private final boolean singular;
+
+  /**
+   * Factor a matrix
+   * @param matrix                            n x n matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public LUDecomposition(double[][] matrix) throws NonConformableMatrixException {
+    this(DenseMatrix.of(matrix));
+  }
+
+  /**
+   * Factor a matrix. The matrix itself is not modified.
+   * @param matrix                            n x n matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public LUDecomposition(DenseMatrix matrix) throws NonConformableMatrixException {
+    if (matrix.rows != matrix.cols) {
+      throw new NonConformableMatrixException("Matrix not n x n");
+    }
+
+    n = matrix.rows;
+    lu = matrix.copy();
+    pivot = new int[n];
+
+    for (int i = 0; i < n; i++) {
+      pivot[i] = i;
+    }
+
+    double[] a = lu.data;
+    int swaps = 0;
+    boolean zeroPivot = false;
+
+    for (int j = 0; j < n; j++) {
+      int p = MatLib.computePivot(lu, j);
+
+      if (a[p * n + j] == 0) {
+        zeroPivot = true;
+        continue;
+      }
+
+      if (p > j) {
+        lu.swapRow(j, p);
+        int temp = pivot[j];
+        pivot[j] = pivot[p];
+        pivot[p] = temp;
+        swaps++;
+      }
+
+      double diagonal = a[j * n + j];
+
+      for (int i = j + 1; i < n; i++) {
+        double l = a[i * n + j] / diagonal;
+        a[i * n + j] = l;
+
+        if (l == 0) {
+          continue;
+        }
+
+        for (int k = j + 1; k < n; k++) {
+          a[i * n + k] -= l * a[j * n + k];
+        }
+      }
+    }
+
+    evenSwaps = swaps % 2 == 0;
+    singular = zeroPivot;
+  }
+
+  @Override
+  public int size() {
+    return n;
+  }
+
+  /**
+   * True when a zero pivot was found. Solves and inverses are not available.
+   * @return    Whether the matrix is singular
+   */
+  @Override
+  public boolean isSingular() {
+    return singular;
+  }
+
+  /**
+   * Row permutation of the factorization. Row i of PA is row pivot[i] of A.
+   * @return    Copy of the pivot vector
+   */
+  public int[] pivot() {
+    return pivot.clone();
+  }
+
+  /**
+   * Unit lower triangular factor L
+   * @return    L as a new matrix
+   */
+  public double[][] lower() {
+    double[][] l = new double[n][n];
+
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(lu.data, i * n, l[i], 0, i);
+      l[i][i] = 1;
+    }
+
+    return l;
+  }
+
+  /**
+   * Upper triangular factor U
+   * @return    U as a new matrix
+   */
+  public double[][] upper() {
+    double[][] u = new double[n][n];
+
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(lu.data, i * n + i, u[i], i, n - i);
+    }
+
+    return u;
+  }
+
+  /**
+   * Determinant of the factored matrix
+   * @return    det(A), 0 when singular
+   */
+  @Override
+  public double determinant() {
+    if (singular) {
+      return 0;
+    }
+
+    double det = evenSwaps ? 1 : -1;
+
+    for (int i = 0; i < n; i++) {
+      det *= lu.data[i * n + i];
+    }
+
+    return det;
+  }
+
+  /**
+   * Solve Ax = b
+   * @param b                                 Right hand side of length n
+   * @return                                  Solution x
+   * @throws NonConformableMatrixException    b does not have length n
+   */
+  @Override
+  public double[] solve(double[] b) throws NonConformableMatrixException {
+    if (b.length != n) {
+      throw new NonConformableMatrixException(String.format("Vector of length %s, matrix is %s x %s", b.length, n, n));
+    }
+
+    double[] x = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      x[i] = b[pivot[i]];
+    }
+
+    substitute(x, 1);
+
+    return x;
+  }
+
+  /**
+   * Solve AX = B for every column of B at once
+   * @param b                                 n x k right hand sides
+   * @return                                  n x k solution X
+   * @throws NonConformableMatrixException    B does not have n rows
+   */
+  @Override
+  public double[][] solve(double[][] b) throws NonConformableMatrixException {
+    return solve(DenseMatrix.of(b)).toArray();
+  }
+
+  /**
+   * Solve AX = B for every column of B at once
+   * @param b                                 n x k right hand sides
+   * @return                                  n x k solution X
+   * @throws NonConformableMatrixException    B does not have n rows
+   */
+  @Override
+  public DenseMatrix solve(DenseMatrix b) throws NonConformableMatrixException {
+    if (b.rows != n) {
+      throw new NonConformableMatrixException(String.format("Matrix B has %s rows, matrix A is %s x %s", b.rows, n, n));
+    }
+
+    DenseMatrix x = new DenseMatrix(n, b.cols);
+
+    for (int i = 0; i < n; i++) {
+      x.subMatrix(i, 0, 1, b.cols).assign(b.subMatrix(pivot[i], 0, 1, b.cols));
+    }
+
+    substitute(x.data, b.cols);
+
+    return x;
+  }
+
+  /**
+   * Inverse of the factored matrix
+   * @return    A^-1
+   */
+  @Override
+  public double[][] inverse() {
+    DenseMatrix x = new DenseMatrix(n, n);
+
+    for (int i = 0; i < n; i++) {
+      x.data[i * n + pivot[i]] = 1;
+    }
+
+    substitute(x.data, n);
+
+    return x.toArray();
+  }
+
+  /**
+   * Forward and back substitution on k right hand sides stored row-major in
+   * x, already permuted by the pivot vector. Every step updates a whole row
+   * of x, so wide right hand sides are processed with unit stride.
+   */
+  private void substitute(double[] x, int k) {
+    forwardSubstitute(x, k);
+    backSubstitute(x, k);
+  }
+
+  // Ly = Pb
+  private void forwardSubstitute(double[] x, int k) {
+    if (singular) {
+      throw new ArithmeticException("Matrix is singular");
+    }
+
+    double[] a = lu.data;
+
+    for (int i = 1; i < n; i++) {
+      for (int j = 0; j < i; j++) {
+        double l = a[i * n + j];
+
+        if (l != 0) {
+          for (int c = 0; c < k; c++) {
+            x[i * k + c] -= l * x[j * k + c];
+          }
+        }
+      }
+    }
+  }
+
+  // Ux = y
+  private void backSubstitute(double[] x, int k) {
+    double[] a = lu.data;
+
+    for (int i = n - 1; i >= 0; i--) {
+      for (int j = i + 1; j < n; j++) {
+        double u = a[i * n + j];
+
+        if (u != 0) {
+          for (int c = 0; c < k; c++) {
+            x[i * k + c] -= u * x[j * k + c];
+          }
+        }
+      }
+
+      double diagonal = a[i * n + i];
+
+      for (int c = 0; c < k; c++) {
+        x[i * k + c] /= diagonal;
+      }
+    }
+  }
+
+  /**
+   * @return    Approximate heap footprint of the factors in bytes
+   */
+  long bytes() {
+    return 8L * n * n + 4L * n;
+  }
+}
@@ -5,9 +5,19 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Main {
+    /** Samples read from the capture before they are handed to the detector */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Report the pulses of resources/pulse.txt found in resources/signal.txt
+     * @param args  Optional minimum normalized score of a reported pulse,
+     *              by default {@link PulseDetector#DEFAULT_DEVIATIONS} noise
+     *              standard deviations
+     */
     public static void main(String[] args) {
         List<String> pulseArrayList = readDoubleFile("pulse.txt");
         double[] pulseArray = new double[pulseArrayList.size()];
@@ -16,21 +26,28 @@ public class Main {
             pulseArray[i] = Double.valueOf(pulseArrayList.get(i));
         }
 
-        List<String> receivingPulseArrayList = readDoubleFile("signal.txt");
-        double[] receivingArray = new double[receivingPulseArrayList.size()];
+        PulseDetector detector = args.length > 0
+                ? new PulseDetector(pulseArray, Double.parseDouble(args[0]))
+                : new PulseDetector(pulseArray);
 
-        for (int i = 0; i < receivingArray.length; i++) {
-            receivingArray[i] = Double.valueOf(receivingPulseArrayList.get(i));
-        }
+        try (BufferedReader br = new BufferedReader(new FileReader(new File("resources/signal.txt")))) {
+            double[] chunk = new double[CHUNK_SIZE];
+            int count = 0;
+            String line;
 
-        /*for (double aReceivingArray : receivingArray) {
-            System.out.println(aReceivingArray);
-        }*/
+            while ((line = br.readLine()) != null) {
+                chunk[count++] = Double.valueOf(line);
 
-        double[] correlation = MatLib.normalizedCrossCorrelatiton(pulseArray, receivingArray);
+                if (count == chunk.length) {
+                    printDetections(detector.process(chunk));
+                    count = 0;
+                }
+            }
 
-        for (double aCorrelation : correlation) {
-            System.out.println(aCorrelation);
+            printDetections(detector.process(Arrays.copyOf(chunk, count)));
+            printDetections(detector.flush());
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
         /*List<String> originalArrayList = readDoubleFile("original.txt");
@@ -46,6 +63,12 @@ public class Main {
         }*/
     }
 
+    private static void printDetections(List<PulseDetector.Detection> detections) {
+        for (PulseDetector.Detection detection : detections) {
+            System.out.println(detection);
+        }
+    }
+
     private static List<String> readDoubleFile(String file) {
         String fileName = "resources/" + file;
         BufferedReader br;
@@ -2,120 +2,122 @@ package com.adr.matlib;
 
 import com.adr.matlib.exception.NonConformableMatrixException;
 
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public final class MatLib {
 
-  private static void f(int s) {
-    for(int i = 0; i < 512; i++) {
-      double sum = 0.0;
+  /** Default number of multiply-adds below which a parallel multiply stays serial */
+  public static final long PARALLEL_MULTIPLY_THRESHOLD = 1L << 21;
 
-      for(int k = 1; k <= s; k++) {
-        sum += Math.sin(2 * Math.PI * (2 * k - 1) * (i * 1.0 / 512)) / (2 * k - 1);
-      }
+  private static volatile FactorizationCache factorizationCache;
 
-      System.out.println(sum);
-    }
+  /**
+   * Install a cache of factorizations used by calculateDeterminant,
+   * invertMatrix and solveLinearSystem. Pass null to turn caching off.
+   * @param cache   Cache shared by every caller, or null
+   */
+  public static void setFactorizationCache(FactorizationCache cache) {
+    factorizationCache = cache;
   }
 
-  private static void g(int s) {
-    for(int i = 0; i < 512; i++) {
-      double sum = 0.0;
-
-      for(int k = 1; k <= s; k++) {
-        sum += Math.sin(2 * Math.PI * (2 * k) * (i * 1.0 / 512)) / (2 * k);
-      }
-
-      System.out.println(sum);
-    }
+  public static FactorizationCache getFactorizationCache() {
+    return factorizationCache;
   }
 
+  /**
+   * a sin(2 pi f1 (t - c)) + a sin(2 pi f2 (t - c)) at t = i / samples
+   * @param a         Amplitude of both sines
+   * @param f1        Cycles of the first sine over the whole buffer
+   * @param f2        Cycles of the second sine over the whole buffer
+   * @param c         Time shift, as a fraction of the buffer
+   * @param samples   Number of samples
+   * @return          Sum of the sines
+   */
   public static double[] sinSummation(double a, double f1, double f2, double c, int samples) {
     double[] sum = new double[samples];
 
-    for(int i = 0; i < samples; i++) {
-      sum[i] = sin(a, f1, c, i * 1.0 / samples) + sin(a, f2, c, i * 1.0 / samples);
-    }
+    oscillator(a, f1, c, samples).generate(sum, 0, samples);
+    oscillator(a, f2, c, samples).add(sum, 0, samples);
 
     return sum;
   }
 
+  /**
+   * a sin(2 pi f1 (t - c)) * a sin(2 pi f2 (t - c)) at t = i / samples
+   * @param a         Amplitude of both sines
+   * @param f1        Cycles of the first sine over the whole buffer
+   * @param f2        Cycles of the second sine over the whole buffer
+   * @param c         Time shift, as a fraction of the buffer
+   * @param samples   Number of samples
+   * @return          Product of the sines
+   */
   public static double[] sinProduct(double a, double f1, double f2, double c, int samples) {
     double[] product = new double[samples];
+    double[] second = new double[samples];
 
-    for(int i = 0; i < samples; i++) {
-      product[i] = sin(a, f1, c, i * 1.0 / samples) * sin(a, f2, c, i * 1.0 / samples);
+    oscillator(a, f1, c, samples).generate(product, 0, samples);
+    oscillator(a, f2, c, samples).generate(second, 0, samples);
+
+    for (int i = 0; i < samples; i++) {
+      product[i] *= second[i];
     }
 
     return product;
   }
 
+  private static Oscillator oscillator(double a, double f, double c, int samples) {
+    return new Oscillator(a, f / samples, -2 * Math.PI * f * c);
+  }
+
   public static double sin(double a, double f, double c, double t) {
     return a * Math.sin(2 * Math.PI * f * (t - c));
   }
 
   public static double[] lowPassFilter(double[] data, int n) {
-    double[] filter = new double[data.length];
-
-    for(int i = 0; i < n; i++) {
-      filter[i] = 1;
-      filter[filter.length - i - 1] = 1;
-    }
-
-    return applyFilter(data, filter);
+    return filter(data, new SpectralFilterChain().lowPass(n));
   }
 
   public static double[] highPassFilter(double[] data, int n) {
-    double[] filter = new double[data.length];
-    Arrays.fill(filter, 1);
-
-    for(int i = 0; i < n; i++) {
-      filter[i] = 0;
-    }
-
-    return applyFilter(data, filter);
+    return filter(data, new SpectralFilterChain().highPass(n));
   }
 
   public static double[] bandPassFilter(double[] data, int lowerBound, int upperBound) {
-    return applyFilter(data, generateBandFilter(data.length, lowerBound, upperBound, 0, 1));
+    return filter(data, new SpectralFilterChain().bandPass(lowerBound, upperBound));
   }
 
   public static double[] notchFilter(double[] data, int lowerBound, int upperBound) {
-    return applyFilter(data, generateBandFilter(data.length, lowerBound, upperBound, 1, 0));
+    return filter(data, new SpectralFilterChain().notch(lowerBound, upperBound));
   }
 
-  private static double[] generateBandFilter(int length, int lowerBound, int upperBound, int fillValue, int filterValue) {
-    double[] filter = new double[length];
-    Arrays.fill(filter, fillValue);
-
-    for(int i = lowerBound; i <= upperBound; i++) {
-      filter[i] = filterValue;
-    }
-
-    for(int i = lowerBound; i < upperBound; i++) {
-      filter[filter.length - 1 - i] = filterValue;
-    }
+  private static double[] filter(double[] data, SpectralFilterChain chain) {
+    double[] duplicate = data.clone();
+    chain.apply(duplicate);
 
-    return filter;
+    return duplicate;
   }
 
-  private static double[] applyFilter(double[] data, double[] filter) {
-    double[] duplicate = new double[data.length];
-    System.arraycopy(data, 0, duplicate, 0, duplicate.length);
+  /**
+   * Periodogram |Z_k|^2 of a single full-length FFT. For averaged, windowed
+   * estimates of long signals see {@link WelchEstimator}.
+   * @param z     N x 1 Vector of complex numbers
+   * @return      Squared magnitude of every FFT bin
+   */
+  public static double[] PSD(Complex[] z) {
+    int n = z.length;
+    double[] re = new double[n];
+    double[] im = new double[n];
 
-    for (int i = 0; i < duplicate.length; i++) {
-      duplicate[i] *= filter[i];
+    for (int i = 0; i < n; i++) {
+      re[i] = z[i].re();
+      im[i] = z[i].im();
     }
 
-    return duplicate;
-  }
+    Fft.transform(re, im, 1);
 
-  public static double[] PSD(Complex[] z) {
-    double[] psd = new double[z.length];
-    Complex[] fft = fastFourierTransform(z,1);
+    double[] psd = new double[n];
 
-    for (int i = 0; i < fft.length; i++) {
-      psd[i] = fft[i].times(fft[i]).abs();
+    for (int i = 0; i < n; i++) {
+      psd[i] = re[i] * re[i] + im[i] * im[i];
     }
 
     return psd;
@@ -123,50 +125,46 @@ public final class MatLib {
 
   public static double[] fftConvolution(double[] uArray, int p) {
     int n = uArray.length;
+    int bins = n / 2 + 1;
 
-    Complex[] u = new Complex[n];
-    Complex[] h = new Complex[n];
+    double[] uRe = new double[bins];
+    double[] uIm = new double[bins];
+    double[] hRe = new double[bins];
+    double[] hIm = new double[bins];
+    double[] h = new double[n];
 
-    for (int i = 0; i < uArray.length; i++) {
-      u[i] = new Complex(uArray[i], 0);
+    for (int i = 0; i < p && i < n; i++) {
+      h[i] = 1.0 / p;
     }
 
-    for (int i = 0; i < h.length; i++) {
-      if(i < p) {
-        h[i] = new Complex(1.0 / p, 0);
-      } else {
-        h[i] = new Complex(0, 0);
-      }
-    }
-
-    Complex[] uFFT = fastFourierTransform(u, 1);
-    Complex[] hFFT = fastFourierTransform(h, 1);
+    Fft.realForward(uArray, uRe, uIm);
+    Fft.realForward(h, hRe, hIm);
 
-    Complex[] con = new Complex[n];
-
-    for (int i = 0; i < con.length; i++) {
-      con[i] = hFFT[i].times(uFFT[i]);
+    for (int i = 0; i < bins; i++) {
+      double re = hRe[i] * uRe[i] - hIm[i] * uIm[i];
+      uIm[i] = hRe[i] * uIm[i] + hIm[i] * uRe[i];
+      uRe[i] = re;
     }
 
-    con = fastFourierTransform(con, -1);
-
-    double[] real = new double[n];
-
-    for (int i = 0; i < real.length; i++) {
-      real[i] = con[i].re();
-    }
+    Fft.realInverse(uRe, uIm, h);
 
-    return real;
+    return h;
   }
 
+  /**
+   * Cross-correlation of y and x divided by the square root of both signal
+   * energies, so a perfect match scores 1. The energies are the lag 0
+   * autocorrelations, computed directly in O(n).
+   * @param y     Template, usually the shorter signal
+   * @param x     Signal searched for the template
+   * @return      Normalized correlation at lags 0 to x.length - 1
+   */
   public static double[] normalizedCrossCorrelatiton(double[] y, double[] x) {
-    double[] correlation = crossCorrelation(y, x);
-    double[] autoXCorr = autoCorrelation(x);
-    double[] autoYCorr = autoCorrelation(y);
-    double[] norm = new double[correlation.length];
+    double[] norm = crossCorrelation(y, x);
+    double scale = Math.sqrt(Correlation.energy(x) * Correlation.energy(y));
 
     for (int i = 0; i < norm.length; i++) {
-      norm[i] = correlation[i] / Math.sqrt(autoXCorr[0] * autoYCorr[0]);
+      norm[i] = norm[i] / scale;
     }
 
     return norm;
@@ -176,24 +174,15 @@ public final class MatLib {
     return crossCorrelation(x, x);
   }
 
+  /**
+   * Cross-correlation r[i] = sum_j y[j] x[i + j] at lags 0 to x.length - 1.
+   * Large inputs are correlated with zero-padded FFTs, small ones directly.
+   * @param y     Template, zero past its end and truncated to x.length
+   * @param x     Signal
+   * @return      Correlation at every lag
+   */
   public static double[] crossCorrelation(double[] y, double[] x) {
-    int n = x.length;
-    double[] r = new double[n];
-    double[] y2 = new double[n];
-    double[] x2 = new double[n];
-
-    System.arraycopy(y, 0, y2, 0, y.length);
-    System.arraycopy(x, 0, x2, 0, x2.length);
-
-    for (int i = 0; i < n; i++) {
-      r[i] = 0.0;
-
-      for(int k = i; k < n; k++) {
-        r[i] += x2[k] * y2[k - i];
-      }
-    }
-
-    return r;
+    return Correlation.crossCorrelation(y, x);
   }
 
   /**
@@ -203,51 +192,21 @@ public final class MatLib {
    * @return      FFT or inverse FFT of Z
    */
   public static Complex[] fastFourierTransform(Complex[] original, int d) {
-    Complex[] z = new Complex[original.length];
-    System.arraycopy(original, 0, z, 0, z.length);
+    int n = original.length;
+    double[] re = new double[n];
+    double[] im = new double[n];
 
-    int n = z.length;
-    double theta = (-2 * Math.PI * d) / n;
-    int r = n / 2;
-    int k, m;
-    Complex t;
-
-    for (int i = 1; i <= n-1; i *= 2) {
-      Complex w = new Complex(Math.cos(i * theta), Math.sin(i * theta));
-
-      for (k = 0; k <= n-1; k += 2*r) {
-        Complex u = new Complex(1,0);
-        for (m = 0; m <= r - 1; m++) {
-          t = z[k+m].minus(z[k+m+r]);
-          z[k+m] = z[k+m].plus(z[k+m+r]);
-          z[k+m+r] = t.times(u);
-          u = u.times(w);
-        }
-      }
-      r = r / 2;
+    for (int i = 0; i < n; i++) {
+      re[i] = original[i].re();
+      im[i] = original[i].im();
     }
 
-    for (int i = 0; i <= n-1; i++) {
-      r = i;
-      k = 0;
+    Fft.transform(re, im, d);
 
-      for(m = 1; m <= n - 1;) {
-        k = 2*k + (r % 2);
-        r /= 2;
-        m *= 2;
-      }
+    Complex[] z = new Complex[n];
 
-      if (k > i) {
-        t = z[i];
-        z[i] = z[k];
-        z[k] = t;
-      }
-    }
-
-    if (d < 0) {
-      for(int i = 0; i <= n - 1; i++) {
-        z[i] = z[i].scale(1.0/n);
-      }
+    for (int i = 0; i < n; i++) {
+      z[i] = new Complex(re[i], im[i]);
     }
 
     return z;
@@ -267,15 +226,101 @@ public final class MatLib {
           matrixA.length, matrixA[0].length, matrixB.length, matrixB[0].length));
     }
 
-    double[][] result = new double[matrixA.length][matrixB[0].length];
+    return multiplyMatrix(DenseMatrix.of(matrixA), DenseMatrix.of(matrixB)).toArray();
+  }
+
+  /**
+   * Multiple two matrices
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @return                                  Product of AB
+   * @throws NonConformableMatrixException    Invalid matrix sizes
+   */
+  public static DenseMatrix multiplyMatrix(DenseMatrix matrixA, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    if (matrixA.cols != matrixB.rows) {
+      throw new NonConformableMatrixException(String.format("Matrix A size: %s x %s, Matrix B size: %s x %s",
+          matrixA.rows, matrixA.cols, matrixB.rows, matrixB.cols));
+    }
+
+    DenseMatrix result = new DenseMatrix(matrixA.rows, matrixB.cols);
+    Gemm.multiply(1, matrixA, matrixB, result);
+
+    return result;
+  }
+
+  /**
+   * Multiple two matrices, computing blocks of the product in parallel on pool.
+   * Products with fewer than {@link #PARALLEL_MULTIPLY_THRESHOLD} multiply-adds
+   * stay on the calling thread. The result is identical to the serial product.
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @param pool                              Pool computing the blocks
+   * @return                                  Product of AB
+   * @throws NonConformableMatrixException    Invalid matrix sizes
+   */
+  public static double[][] multiplyMatrix(double[][] matrixA, double[][] matrixB, ForkJoinPool pool)
+      throws NonConformableMatrixException {
+    return multiplyMatrix(DenseMatrix.of(matrixA), DenseMatrix.of(matrixB), pool).toArray();
+  }
+
+  /**
+   * Multiple two matrices, computing blocks of the product in parallel on pool.
+   * Products with fewer than {@link #PARALLEL_MULTIPLY_THRESHOLD} multiply-adds
+   * stay on the calling thread. The result is identical to the serial product.
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @param pool                              Pool computing the blocks
+   * @return                                  Product of AB
+   * @throws NonConformableMatrixException    Invalid matrix sizes
+   */
+  public static DenseMatrix multiplyMatrix(DenseMatrix matrixA, DenseMatrix matrixB, ForkJoinPool pool)
+      throws NonConformableMatrixException {
+    return multiplyMatrix(matrixA, matrixB, pool, PARALLEL_MULTIPLY_THRESHOLD);
+  }
 
-    for(int i = 0; i < result.length; i++) {
-      result[i] = dotProduct(matrixA[i], matrixB);
+  /**
+   * Multiple two matrices, computing blocks of the product in parallel on pool.
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @param pool                              Pool computing the blocks
+   * @param threshold                         Products with fewer multiply-adds stay serial
+   * @return                                  Product of AB
+   * @throws NonConformableMatrixException    Invalid matrix sizes
+   */
+  public static DenseMatrix multiplyMatrix(DenseMatrix matrixA, DenseMatrix matrixB, ForkJoinPool pool, long threshold)
+      throws NonConformableMatrixException {
+    if (matrixA.cols != matrixB.rows) {
+      throw new NonConformableMatrixException(String.format("Matrix A size: %s x %s, Matrix B size: %s x %s",
+          matrixA.rows, matrixA.cols, matrixB.rows, matrixB.cols));
     }
 
+    DenseMatrix result = new DenseMatrix(matrixA.rows, matrixB.cols);
+    Gemm.multiply(pool, threshold, 1, matrixA, matrixB, result);
+
     return result;
   }
 
+  /**
+   * Accumulate a scaled product into a matrix, C += alpha * A * B. C must not
+   * share storage with A or B.
+   * @param alpha                             Scalar multiple of AB
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @param matrixC                           Matrix C, updated in place
+   * @throws NonConformableMatrixException    Invalid matrix sizes
+   */
+  public static void multiplyAccumulate(double alpha, DenseMatrix matrixA, DenseMatrix matrixB, DenseMatrix matrixC)
+      throws NonConformableMatrixException {
+    if (matrixA.cols != matrixB.rows || matrixC.rows != matrixA.rows || matrixC.cols != matrixB.cols) {
+      throw new NonConformableMatrixException(String.format(
+          "Matrix A size: %s x %s, Matrix B size: %s x %s, Matrix C size: %s x %s",
+          matrixA.rows, matrixA.cols, matrixB.rows, matrixB.cols, matrixC.rows, matrixC.cols));
+    }
+
+    Gemm.multiply(alpha, matrixA, matrixB, matrixC);
+  }
+
   public static double[] dotProduct(double[] a, double[][] b) {
     double[] newMatrix = new double[b[0].length];
 
@@ -316,6 +361,48 @@ public final class MatLib {
     return matrixC;
   }
 
+  /**
+   * Adds two matrices and returns the result
+   * @param matrixA                             First matrix
+   * @param matrixB                             Second matrix
+   * @return                                     First matrix + second matrix
+   * @throws NonConformableMatrixException       Matrix do not have compatible sizes
+   */
+  public static DenseMatrix addMatrix(DenseMatrix matrixA, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    return combineMatrix(matrixA, 1, matrixB);
+  }
+
+  /**
+   * Subtract Matrix B from Matrix A
+   * @param matrixA                           Matrix A
+   * @param matrixB                           Matrix B
+   * @return                                  Resulting Matrix C
+   * @throws NonConformableMatrixException    When Matrix sizes are not compatible.
+   */
+  public static DenseMatrix subtractMatrix(DenseMatrix matrixA, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    return combineMatrix(matrixA, -1, matrixB);
+  }
+
+  private static DenseMatrix combineMatrix(DenseMatrix matrixA, double k, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    if (matrixA.rows != matrixB.rows || matrixA.cols != matrixB.cols) {
+      throw new NonConformableMatrixException(String.format("Matrix A size: %s x %s, Matrix B size: %s x %s",
+          matrixA.rows, matrixA.cols, matrixB.rows, matrixB.cols));
+    }
+
+    DenseMatrix matrixC = new DenseMatrix(matrixA.rows, matrixA.cols);
+
+    for (int i = 0; i < matrixC.rows; i++) {
+      for (int j = 0; j < matrixC.cols; j++) {
+        matrixC.data[i * matrixC.cols + j] = matrixA.get(i, j) + k * matrixB.get(i, j);
+      }
+    }
+
+    return matrixC;
+  }
+
   /**
    * Subtract Matrix B from Matrix A
    * @param matrixA                           Matrix A
@@ -361,75 +448,285 @@ public final class MatLib {
     return cloneMatrix;
   }
 
+  /**
+   * Multiply a matrix by a scalar vector
+   * @param k         Scalar multiple
+   * @param matrix    Original matrix
+   * @return          Scaled matrix
+   */
+  public static DenseMatrix multipleByScalar(double k, DenseMatrix matrix) {
+    DenseMatrix cloneMatrix = matrix.copy();
+
+    for (int i = 0; i < cloneMatrix.data.length; i++) {
+      cloneMatrix.data[i] = k * cloneMatrix.data[i];
+    }
+
+    return cloneMatrix;
+  }
+
+  /**
+   * Reduce [A, B] to [I, X] with partial pivoting. B may hold any number of
+   * right hand sides; all of them are eliminated in the same pass.
+   * @param matrixA                           n x n system matrix
+   * @param matrixB                           n x k right hand sides
+   * @return                                  Partitions [I, X] of the reduced system
+   * @throws NonConformableMatrixException    A and B do not have the same number of rows
+   */
   public static double[][][] gaussJordanElimination(double[][] matrixA, double[][] matrixB)
       throws NonConformableMatrixException{
-    if(matrixB[0].length > 1) {
+    if(matrixA.length != matrixB.length) {
+      throw new NonConformableMatrixException(String.format("Matrix A has %s rows, Matrix B has %s rows",
+          matrixA.length, matrixB.length));
+    }
+
+    double[][] matrixC = concatenateMatrix(matrixA, matrixB);
+    reduceInPlace(matrixC);
+
+    return partitionMatrix(matrixC, matrixA[0].length);
+  }
+
+  /**
+   * Reduce [A, B] to [I, X] with partial pivoting. B may hold any number of
+   * right hand sides; all of them are eliminated in the same pass. The
+   * returned partitions are views over a single working matrix.
+   * @param matrixA                           n x n system matrix
+   * @param matrixB                           n x k right hand sides
+   * @return                                  Partitions [I, X] of the reduced system
+   * @throws NonConformableMatrixException    A and B do not have the same number of rows
+   */
+  public static DenseMatrix[] gaussJordanElimination(DenseMatrix matrixA, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    DenseMatrix matrixC = concatenateMatrix(matrixA, matrixB);
+    reduceInPlace(matrixC);
+
+    return partitionMatrix(matrixC, matrixA.cols);
+  }
+
+  /**
+   * Reduce [A, B] to an upper triangular system [D, e] that backSubstitution
+   * solves. The result never depends on the factorization cache; use
+   * {@link #solveLinearSystem(double[][], double[][])} to solve through it.
+   * @param matrixA                           n x n system matrix
+   * @param matrixB                           n x 1 right hand side
+   * @return                                  Partitions [D, e] of the reduced system
+   * @throws NonConformableMatrixException    B is not n x 1
+   */
+  public static double[][][] gaussianElimination(double[][] matrixA, double[][] matrixB)
+      throws NonConformableMatrixException {
+    if (matrixA[0].length + matrixB[0].length != matrixA.length + 1) {
       throw new NonConformableMatrixException("Matrix B has width greater than 1");
     }
 
-    int E = 1;
     double[][] matrixC = concatenateMatrix(matrixA, matrixB);
+    eliminateInPlace(matrixC);
 
-    for(int i = 0; i < matrixC.length; i++) {
-      int p = computePivot(matrixC, i);
+    // Partition matrix as C = [D, e] where D is n x n and e is n X 1
+    return partitionMatrix(matrixC, matrixC[0].length - 1);
+  }
+
+  /**
+   * Solve Ax = b. When a factorization cache is installed and A is square and
+   * non-singular, the cached factors of A are reused; otherwise this is
+   * backSubstitution(gaussianElimination(A, b)).
+   * @param matrixA                           n x n system matrix
+   * @param matrixB                           n x 1 right hand side
+   * @return                                  Solution x
+   * @throws NonConformableMatrixException    B is not n x 1
+   */
+  public static double[] solveLinearSystem(double[][] matrixA, double[][] matrixB)
+      throws NonConformableMatrixException {
+    FactorizationCache cache = factorizationCache;
 
-      if (matrixC[p][i] == 0) {
-        matrixC[p][i] = 0;
-        E = 0;
-        return partitionMatrix(matrixC, matrixC[0].length - 1);
+    if (cache != null && matrixA.length == matrixA[0].length && matrixB.length == matrixA.length
+        && matrixB[0].length == 1) {
+      Factorization factorization = cache.get(matrixA);
+
+      if (!factorization.isSingular()) {
+        double[] b = new double[matrixB.length];
+
+        for (int i = 0; i < b.length; i++) {
+          b[i] = matrixB[i][0];
+        }
+
+        return factorization.solve(b);
+      }
+    }
+
+    return backSubstitution(gaussianElimination(matrixA, matrixB));
+  }
+
+  /**
+   * Forward elimination with partial pivoting, performed in place on matrix.
+   * Rows are swapped by reference and only the columns right of the pivot are
+   * updated, so the whole reduction is O(n^3) with no allocation.
+   * @param matrix    Working matrix, reduced to upper triangular form
+   * @return          Number of row swaps, or -1 when a zero pivot stops the elimination
+   */
+  private static int eliminateInPlace(double[][] matrix) {
+    int swaps = 0;
+
+    // For j = 0 to matrix.length, do
+    for (int j = 0; j < matrix.length; j++) {
+      // Compute pivot index j <= p <= matrix.length
+      int p = computePivot(matrix, j);
+
+      // If matrix[p][j] == 0, the matrix is singular
+      if (matrix[p][j] == 0) {
+        return -1;
+      }
+
+      // If p > j, then swap rows p and j
+      if (p > j) {
+        swapRowInPlace(matrix, j, p);
+        swaps++;
+      }
+
+      double[] pivotRow = matrix[j];
+
+      // For each i > j, subtract matrix[i][j] / matrix[j][j] times row j from row i
+      for (int i = j + 1; i < matrix.length; i++) {
+        double[] row = matrix[i];
+        double times = row[j] / pivotRow[j];
+
+        for (int k = j + 1; k < row.length; k++) {
+          row[k] -= times * pivotRow[k];
+        }
+
+        row[j] = 0;
+      }
+    }
+
+    return swaps;
+  }
+
+  /**
+   * Gauss-Jordan reduction with partial pivoting, performed in place on matrix.
+   * @param matrix    Working matrix [A, B], reduced to [I, X] when A is non-singular
+   * @return          False when a zero pivot stops the reduction
+   */
+  private static boolean reduceInPlace(double[][] matrix) {
+    for (int i = 0; i < matrix.length; i++) {
+      int p = computePivot(matrix, i);
+
+      if (matrix[p][i] == 0) {
+        return false;
       }
 
       if (p > i) {
-        matrixC = swapRow(matrixC, i, p);
+        swapRowInPlace(matrix, i, p);
+      }
+
+      double[] pivotRow = matrix[i];
+      double pivot = pivotRow[i];
+
+      for (int k = i + 1; k < pivotRow.length; k++) {
+        pivotRow[k] /= pivot;
       }
 
-      matrixC = divideRow(matrixC, i, matrixC[i][i]);
+      pivotRow[i] = 1;
+
+      for (int j = 0; j < matrix.length; j++) {
+        double[] row = matrix[j];
+        double times = row[i];
+
+        if (j == i || times == 0) {
+          continue;
+        }
 
-      for (int j = 0; j < matrixC.length; j++) {
-        if (j != i) {
-          matrixC = subtractRow(matrixC, i, j, matrixC[j][i]);
+        for (int k = i + 1; k < row.length; k++) {
+          row[k] -= times * pivotRow[k];
         }
+
+        row[i] = 0;
       }
     }
 
-    return partitionMatrix(matrixC, matrixC[0].length - 1);
+    return true;
   }
 
-  public static double[][][] gaussianElimination(double[][] matrixA, double[][] matrixB)
+  /**
+   * Gauss-Jordan reduction with partial pivoting, performed in place on a
+   * compact matrix. Each update is a unit-stride pass over one row, so every
+   * right hand side column is carried along with the same elimination.
+   * @param matrix    Working matrix [A, B], reduced to [I, X] when A is non-singular
+   * @return          False when a zero pivot stops the reduction
+   */
+  private static boolean reduceInPlace(DenseMatrix matrix) {
+    double[] data = matrix.data;
+    int cols = matrix.cols;
+
+    for (int i = 0; i < matrix.rows; i++) {
+      int p = computePivot(matrix, i);
+
+      if (data[p * cols + i] == 0) {
+        return false;
+      }
+
+      if (p > i) {
+        matrix.swapRow(i, p);
+      }
+
+      int pivotRow = i * cols;
+      double pivot = data[pivotRow + i];
+
+      for (int k = i + 1; k < cols; k++) {
+        data[pivotRow + k] /= pivot;
+      }
+
+      data[pivotRow + i] = 1;
+
+      for (int j = 0; j < matrix.rows; j++) {
+        int row = j * cols;
+        double times = data[row + i];
+
+        if (j == i || times == 0) {
+          continue;
+        }
+
+        for (int k = i + 1; k < cols; k++) {
+          data[row + k] -= times * data[pivotRow + k];
+        }
+
+        data[row + i] = 0;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Reduce [A, B] to upper triangular form with partial pivoting. The returned
+   * partitions are views over a single working matrix.
+   * @param matrixA                           n x n system matrix
+   * @param matrixB                           n x 1 right hand side
+   * @return                                  Partitions [D, e] of the reduced system
+   * @throws NonConformableMatrixException    B is not n x 1
+   */
+  public static DenseMatrix[] gaussianElimination(DenseMatrix matrixA, DenseMatrix matrixB)
       throws NonConformableMatrixException {
-    int E = 1;
-    double[][] matrixC = concatenateMatrix(matrixA, matrixB);
+    DenseMatrix matrixC = concatenateMatrix(matrixA, matrixB);
 
-    if (matrixC[0].length != matrixC.length + 1) {
+    if (matrixC.cols != matrixC.rows + 1) {
       throw new NonConformableMatrixException("Matrix B has width greater than 1");
     }
 
-    // For j = 0 to matrixC.length, do
-    for (int j = 0; j < matrixC.length; j++) {
-      // Compute pivot index j <= p <= matrixC.length
+    for (int j = 0; j < matrixC.rows; j++) {
       int p = computePivot(matrixC, j);
 
-      // If matrixC[p][j] == 0, set E = 0 and exit
-      if (matrixC[p][j] == 0) {
-        E = 0;
-        return partitionMatrix(matrixC, matrixC[0].length - 1);
+      if (matrixC.get(p, j) == 0) {
+        return partitionMatrix(matrixC, matrixC.cols - 1);
       }
 
-      // If p > j, then swap rows p and j
       if (p > j) {
-        matrixC = swapRow(matrixC, j, p);
+        matrixC.swapRow(j, p);
       }
 
-      // For each j > j, subtract matrixC[j][j] / matrixC[j][j] times row j from row j
-      for (int i = 0; i < matrixC.length; i++) {
-        if (i > j) {
-          matrixC = subtractRow(matrixC, j, i, matrixC[i][j] / matrixC[j][j]);
-        }
+      for (int i = j + 1; i < matrixC.rows; i++) {
+        matrixC.subtractRow(j, i, matrixC.get(i, j) / matrixC.get(j, j));
       }
     }
 
-    // Partition matrix as C = [D, e] where D is n x n and e is n X 1
-    return partitionMatrix(matrixC, matrixC[0].length - 1);
+    return partitionMatrix(matrixC, matrixC.cols - 1);
   }
 
   public static double[] backSubstitution(double[][][] partition) {
@@ -450,43 +747,94 @@ public final class MatLib {
     return x;
   }
 
+  public static double[] backSubstitution(DenseMatrix[] partition) {
+    DenseMatrix D = partition[0];
+    DenseMatrix e = partition[1];
+    double[]    x = new double[D.rows];
+
+    for (int j = D.rows - 1; j >= 0; j--) {
+      double sum = 0;
+
+      for (int i = j + 1; i < D.cols; i++) {
+        sum += D.get(j, i) * x[i];
+      }
+
+      x[j] = (e.get(j, 0) - sum) / D.get(j, j);
+    }
+
+    return x;
+  }
+
   public static double calculateDeterminant(double[][] matrix) throws NonConformableMatrixException {
-    int r = 0;
-    double det;
+    if (matrix.length != matrix[0].length) {
+      throw new NonConformableMatrixException("Matrix not n x n");
+    }
+
+    if(matrix.length == 2) {
+      return matrix[0][0] * matrix[1][1] - matrix[0][1] * matrix[1][0];
+    }
+
+    FactorizationCache cache = factorizationCache;
+
+    if (cache != null) {
+      return cache.get(matrix).determinant();
+    }
+
     double[][] tempMatrix = copy2DMatrix(matrix);
+    int r = eliminateInPlace(tempMatrix);
 
-    if (tempMatrix.length != tempMatrix[0].length) {
+    if (r < 0) {
+      return 0;
+    }
+
+    double sum = 1;
+
+    for(int i = 0; i < tempMatrix.length; i++) {
+      sum *= tempMatrix[i][i];
+    }
+
+    return toPower(-1, r) * sum;
+  }
+
+  public static double calculateDeterminant(DenseMatrix matrix) throws NonConformableMatrixException {
+    if (matrix.rows != matrix.cols) {
       throw new NonConformableMatrixException("Matrix not n x n");
     }
 
-    if(matrix.length == 2) {
-      return tempMatrix[0][0] * tempMatrix[1][1] - tempMatrix[0][1] * tempMatrix[1][0];
+    if (matrix.rows == 2) {
+      return matrix.get(0, 0) * matrix.get(1, 1) - matrix.get(0, 1) * matrix.get(1, 0);
+    }
+
+    FactorizationCache cache = factorizationCache;
+
+    if (cache != null) {
+      return cache.get(matrix).determinant();
     }
 
-    for(int j = 0; j < tempMatrix.length; j++) {
+    int r = 0;
+    DenseMatrix tempMatrix = matrix.copy();
+
+    for (int j = 0; j < tempMatrix.rows; j++) {
       int p = computePivot(tempMatrix, j);
 
-      if(tempMatrix[p][j] == 0) {
-        det = 0;
-        return det;
+      if (tempMatrix.get(p, j) == 0) {
+        return 0;
       }
 
-      if(p > j) {
-        tempMatrix = swapRow(tempMatrix, j, p);
+      if (p > j) {
+        tempMatrix.swapRow(j, p);
         r += 1;
       }
 
-      for (int i = 0; i < tempMatrix.length; i++) {
-        if (i > j) {
-          tempMatrix = subtractRow(tempMatrix, j, i, tempMatrix[i][j] / tempMatrix[j][j]);
-        }
+      for (int i = j + 1; i < tempMatrix.rows; i++) {
+        tempMatrix.subtractRow(j, i, tempMatrix.get(i, j) / tempMatrix.get(j, j));
       }
     }
 
     double sum = 1;
 
-    for(int i = 0; i < tempMatrix.length; i++) {
-      sum *= tempMatrix[i][i];
+    for (int i = 0; i < tempMatrix.rows; i++) {
+      sum *= tempMatrix.get(i, i);
     }
 
     return toPower(-1, r) * sum;
@@ -507,32 +855,86 @@ public final class MatLib {
     return newNumber;
   }
 
+  /**
+   * Factor a square matrix for repeated solves. Symmetric matrices are tried
+   * with Cholesky first; anything that is not symmetric positive definite
+   * falls back to LU with partial pivoting.
+   * @param matrix                            n x n matrix
+   * @return                                  Cholesky or LU factorization of matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public static Factorization factorMatrix(double[][] matrix) throws NonConformableMatrixException {
+    return factorMatrix(DenseMatrix.of(matrix));
+  }
+
+  /**
+   * Factor a square matrix for repeated solves. Symmetric matrices are tried
+   * with Cholesky first; anything that is not symmetric positive definite
+   * falls back to LU with partial pivoting.
+   * @param matrix                            n x n matrix
+   * @return                                  Cholesky or LU factorization of matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public static Factorization factorMatrix(DenseMatrix matrix) throws NonConformableMatrixException {
+    if (CholeskyDecomposition.isSymmetric(matrix)) {
+      CholeskyDecomposition cholesky = new CholeskyDecomposition(matrix);
+
+      if (cholesky.isPositiveDefinite()) {
+        return cholesky;
+      }
+    }
+
+    return new LUDecomposition(matrix);
+  }
+
   public static double[][][] invertMatrix(double[][] matrixA) {
-    int E = 1;
-    double[][] matrixC = concatenateMatrix(matrixA, generateIdentityMatrix(matrixA.length));
+    FactorizationCache cache = factorizationCache;
 
-    for(int i = 0; i < matrixC.length; i++) {
-      int p = computePivot(matrixC, i);
+    if (cache != null && matrixA.length == matrixA[0].length) {
+      Factorization factorization;
 
-      if (matrixC[p][i] == 0) {
-        E = 0;
-        return partitionMatrix(matrixC, matrixC[0].length / 2);
+      try {
+        factorization = cache.get(matrixA);
+      } catch (NonConformableMatrixException e) {
+        throw new IllegalStateException("Square matrix rejected by the factorization cache", e);
       }
 
-      if(p > i) {
-        matrixC = swapRow(matrixC, i, p);
+      if (!factorization.isSingular()) {
+        return new double[][][] {generateIdentityMatrix(matrixA.length), factorization.inverse()};
       }
+    }
 
-      matrixC = divideRow(matrixC, i, matrixC[i][i]);
+    double[][] matrixC = concatenateMatrix(matrixA, generateIdentityMatrix(matrixA.length));
+    reduceInPlace(matrixC);
 
-      for(int j = 0; j < matrixC.length; j++) {
-        if(j != i) {
-          matrixC = subtractRow(matrixC, i, j, matrixC[j][i]);
-        }
+    return partitionMatrix(matrixC, matrixC[0].length / 2);
+  }
+
+  /**
+   * Invert a matrix by Gauss-Jordan elimination of [A, I]
+   * @param matrixA                           n x n matrix
+   * @return                                  Partitions [I, inverse of A] of the working matrix
+   * @throws NonConformableMatrixException    Matrix not n x n
+   */
+  public static DenseMatrix[] invertMatrix(DenseMatrix matrixA) throws NonConformableMatrixException {
+    if (matrixA.rows != matrixA.cols) {
+      throw new NonConformableMatrixException("Matrix not n x n");
+    }
+
+    FactorizationCache cache = factorizationCache;
+
+    if (cache != null) {
+      Factorization factorization = cache.get(matrixA);
+
+      if (!factorization.isSingular()) {
+        return new DenseMatrix[] {DenseMatrix.identity(matrixA.rows), DenseMatrix.of(factorization.inverse())};
       }
     }
 
-    return partitionMatrix(matrixC, matrixC[0].length / 2);
+    DenseMatrix matrixC = concatenateMatrix(matrixA, DenseMatrix.identity(matrixA.rows));
+    reduceInPlace(matrixC);
+
+    return partitionMatrix(matrixC, matrixA.cols);
   }
 
   public static double[][][] partitionMatrix(double[][] matrix, int sizeOfFirstPart) {
@@ -554,36 +956,60 @@ public final class MatLib {
     return parts;
   }
 
+  /**
+   * Split a matrix column-wise. The parts are views and share storage with matrix.
+   * @param matrix            Matrix being partitioned
+   * @param sizeOfFirstPart   Number of columns in the first part
+   * @return                  Both parts of matrix
+   */
+  public static DenseMatrix[] partitionMatrix(DenseMatrix matrix, int sizeOfFirstPart) {
+    return matrix.partition(sizeOfFirstPart);
+  }
+
   public static double[][] subtractRow(double[][] matrix, int value, int from, double times) {
     double[][] copy = copy2DMatrix(matrix);
-
-    for(int i = 0; i < copy[0].length; i++) {
-      copy[from][i] -= times * copy[value][i];
-    }
+    subtractRowInPlace(copy, value, from, times);
 
     return copy;
   }
 
-  public static double[][] divideRow(double[][] matrix, int row, double with) {
-    double[][] copy = copy2DMatrix(matrix);
+  public static void subtractRowInPlace(double[][] matrix, int value, int from, double times) {
+    double[] source = matrix[value];
+    double[] target = matrix[from];
 
-    for(int i = 0; i < copy[row].length; i++) {
-      copy[row][i] = copy[row][i] / with * 1.0;
+    for(int i = 0; i < target.length; i++) {
+      target[i] -= times * source[i];
     }
+  }
+
+  public static double[][] divideRow(double[][] matrix, int row, double with) {
+    double[][] copy = copy2DMatrix(matrix);
+    divideRowInPlace(copy, row, with);
 
     return copy;
   }
 
+  public static void divideRowInPlace(double[][] matrix, int row, double with) {
+    double[] target = matrix[row];
+
+    for(int i = 0; i < target.length; i++) {
+      target[i] = target[i] / with;
+    }
+  }
+
   public static double[][] swapRow(double[][] matrix, int replace, int with) {
     double[][] copy = copy2DMatrix(matrix);
-
-    double[] temp = matrix[replace];
-    copy[replace] = copy[with];
-    copy[with] = temp;
+    swapRowInPlace(copy, replace, with);
 
     return copy;
   }
 
+  public static void swapRowInPlace(double[][] matrix, int replace, int with) {
+    double[] temp = matrix[replace];
+    matrix[replace] = matrix[with];
+    matrix[with] = temp;
+  }
+
   public static int computePivot(double[][] matrix, int column) {
     int pivot = column;
 
@@ -596,6 +1022,18 @@ public final class MatLib {
     return pivot;
   }
 
+  public static int computePivot(DenseMatrix matrix, int column) {
+    int pivot = column;
+
+    for (int i = column; i < matrix.rows; i++) {
+      if (Math.abs(matrix.get(i, column)) > Math.abs(matrix.get(pivot, column))) {
+        pivot = i;
+      }
+    }
+
+    return pivot;
+  }
+
   public static double[][] concatenateMatrix(double[][] matrixA, double[][] matrixB) {
     double[][] matrixC = new double[matrixA.length][matrixA[0].length + matrixB[0].length];
 
@@ -610,6 +1048,20 @@ public final class MatLib {
     return matrixC;
   }
 
+  public static DenseMatrix concatenateMatrix(DenseMatrix matrixA, DenseMatrix matrixB)
+      throws NonConformableMatrixException {
+    if (matrixA.rows != matrixB.rows) {
+      throw new NonConformableMatrixException(String.format("Matrix A has %s rows, Matrix B has %s rows",
+          matrixA.rows, matrixB.rows));
+    }
+
+    DenseMatrix matrixC = new DenseMatrix(matrixA.rows, matrixA.cols + matrixB.cols);
+    matrixC.subMatrix(0, 0, matrixA.rows, matrixA.cols).assign(matrixA);
+    matrixC.subMatrix(0, matrixA.cols, matrixB.rows, matrixB.cols).assign(matrixB);
+
+    return matrixC;
+  }
+
   /**
    * Transpose a matrix
    * @param matrix    Matrix being transposed
@@ -627,6 +1079,15 @@ public final class MatLib {
     return temp;
   }
 
+  /**
+   * Transpose a matrix. The result is a view and shares storage with matrix.
+   * @param matrix    Matrix being transposed
+   * @return          Transpose of matrix
+   */
+  public static DenseMatrix transposeMatrix(DenseMatrix matrix) {
+    return matrix.transpose();
+  }
+
   public static double traceMatrix(double[][] matrix) throws NonConformableMatrixException{
     if(matrix.length != matrix[0].length) {
       throw new NonConformableMatrixException("Not NxN");
@@ -641,6 +1102,20 @@ public final class MatLib {
     return sum;
   }
 
+  public static double traceMatrix(DenseMatrix matrix) throws NonConformableMatrixException {
+    if (matrix.rows != matrix.cols) {
+      throw new NonConformableMatrixException("Not NxN");
+    }
+
+    double sum = 0;
+
+    for (int i = 0; i < matrix.rows; i++) {
+      sum += matrix.get(i, i);
+    }
+
+    return sum;
+  }
+
   public static double[][] eigenPowerMethod(double[][] matrix) throws NonConformableMatrixException {
     double[][] matrixA = copy2DMatrix(matrix);
 
@@ -659,7 +1134,8 @@ public final class MatLib {
       x = multiplyMatrix(matrixA, y);
 
       double[][] yTranpose = transposeMatrix(y);
-      eigenEst = multiplyMatrix(multiplyMatrix(yTranpose, x), invertMatrix(multiplyMatrix(yTranpose, y))[1]);
+      // Rayleigh quotient (y'x) / (y'y); y'y is 1 x 1, so divide instead of inverting it
+      eigenEst = multipleByScalar(1.0 / multiplyMatrix(yTranpose, y)[0][0], multiplyMatrix(yTranpose, x));
 
       r = subtractMatrix(multipleByScalar(eigenEst[0][0], y), x);
 
@@ -751,6 +1227,29 @@ public final class MatLib {
     return max;
   }
 
+  /**
+   * Finds the L1 norm of a matrix
+   * @param matrix    Matrix
+   * @return          L1 norm of matrix
+   */
+  public static double matrixNorm(DenseMatrix matrix) {
+    double max = Double.MIN_VALUE;
+
+    for (int j = 0; j < matrix.cols; j++) {
+      double columnValue = 0;
+
+      for (int i = 0; i < matrix.rows; i++) {
+        columnValue += Math.abs(matrix.get(i, j));
+      }
+
+      if (columnValue > max) {
+        max = columnValue;
+      }
+    }
+
+    return max;
+  }
+
   /**
    * Manual copy of a matrix
    * @param matrix    Matrix being copied
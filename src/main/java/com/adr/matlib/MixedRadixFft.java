@@ -0,0 +1,275 @@
+package com.adr.matlib;
+
+/**
+ * Self-sorting (Stockham) mixed radix FFT for lengths whose only prime
+ * factors are 2, 3, 5 and 7.
+ *
+ * Each stage reads one buffer and writes the other, so no bit-reversal
+ * permutation is needed and the output is already in natural order. Radix 2,
+ * 3 and 4 butterflies are written out; 5 and 7 use a small direct DFT with a
+ * precomputed table of roots. The ping-pong buffers are kept per thread, so
+ * a shared instance allocates nothing after the first call on each thread.
+ * The result is not scaled.
+ */
+final class MixedRadixFft {
+  private final int n;
+  private final int d;
+  private final int[] radices;
+  private final double[] cos;
+  private final double[] sin;
+  private final double[][] rootRe = new double[8][];
+  private final double[][] rootIm = new double[8][];
+  private final ThreadLocal<double[][]> buffers;
+
+  MixedRadixFft(int n, int d, int[] radices) {
+    this.n = n;
+    this.d = d;
+    this.radices = radices;
+
+    // W^j = exp(-2 pi i d j / n)
+    cos = new double[n];
+    sin = new double[n];
+
+    for (int j = 0; j < n; j++) {
+      double angle = -2 * Math.PI * d * j / n;
+      cos[j] = Math.cos(angle);
+      sin[j] = Math.sin(angle);
+    }
+
+    for (int radix : radices) {
+      if (radix > 4 && rootRe[radix] == null) {
+        rootRe[radix] = new double[radix];
+        rootIm[radix] = new double[radix];
+
+        for (int j = 0; j < radix; j++) {
+          double angle = -2 * Math.PI * d * j / radix;
+          rootRe[radix][j] = Math.cos(angle);
+          rootIm[radix][j] = Math.sin(angle);
+        }
+      }
+    }
+
+    buffers = ThreadLocal.withInitial(() -> new double[4][n]);
+  }
+
+  /**
+   * Split n into radix 4, 2, 3, 5 and 7 stages
+   * @param n   Transform length
+   * @return    Radices whose product is n, or null if n has another prime factor
+   */
+  static int[] factor(int n) {
+    int[] radices = new int[32];
+    int count = 0;
+    int remaining = n;
+
+    for (int radix : new int[]{4, 2, 3, 5, 7}) {
+      while (remaining % radix == 0) {
+        radices[count++] = radix;
+        remaining /= radix;
+      }
+    }
+
+    if (remaining != 1) {
+      return null;
+    }
+
+    int[] result = new int[count];
+    System.arraycopy(radices, 0, result, 0, count);
+
+    return result;
+  }
+
+  void transform(double[] re, int reOffset, double[] im, int imOffset, int stride) {
+    double[][] buffer = buffers.get();
+    double[] xr = buffer[0];
+    double[] xi = buffer[1];
+    double[] yr = buffer[2];
+    double[] yi = buffer[3];
+
+    for (int i = 0; i < n; i++) {
+      xr[i] = re[reOffset + i * stride];
+      xi[i] = im[imOffset + i * stride];
+    }
+
+    int length = n;
+    int s = 1;
+
+    for (int radix : radices) {
+      switch (radix) {
+        case 2:
+          radix2(length, s, xr, xi, yr, yi);
+          break;
+        case 3:
+          radix3(length, s, xr, xi, yr, yi);
+          break;
+        case 4:
+          radix4(length, s, xr, xi, yr, yi);
+          break;
+        default:
+          radixN(radix, length, s, xr, xi, yr, yi);
+          break;
+      }
+
+      double[] t = xr;
+      xr = yr;
+      yr = t;
+      t = xi;
+      xi = yi;
+      yi = t;
+
+      length /= radix;
+      s *= radix;
+    }
+
+    for (int i = 0; i < n; i++) {
+      re[reOffset + i * stride] = xr[i];
+      im[imOffset + i * stride] = xi[i];
+    }
+  }
+
+  /*
+   * A stage splits each of the s interleaved sequences of the given length
+   * into radix sequences of length m. Inputs x[q + s(p + rm)] for r < radix
+   * feed one butterfly, whose k-th output is rotated by W^(pks) and stored at
+   * y[q + s(radix p + k)].
+   */
+
+  private void radix2(int length, int s, double[] xr, double[] xi, double[] yr, double[] yi) {
+    int m = length / 2;
+
+    for (int p = 0; p < m; p++) {
+      double wr = cos[p * s];
+      double wi = sin[p * s];
+
+      for (int q = 0; q < s; q++) {
+        int a = q + s * p;
+        int b = a + s * m;
+        int out = q + s * 2 * p;
+
+        double tr = xr[a] - xr[b];
+        double ti = xi[a] - xi[b];
+        yr[out] = xr[a] + xr[b];
+        yi[out] = xi[a] + xi[b];
+        yr[out + s] = tr * wr - ti * wi;
+        yi[out + s] = tr * wi + ti * wr;
+      }
+    }
+  }
+
+  private void radix3(int length, int s, double[] xr, double[] xi, double[] yr, double[] yi) {
+    int m = length / 3;
+    double sin60 = d * Math.sqrt(0.75);
+
+    for (int p = 0; p < m; p++) {
+      double w1r = cos[p * s];
+      double w1i = sin[p * s];
+      double w2r = cos[2 * p * s];
+      double w2i = sin[2 * p * s];
+
+      for (int q = 0; q < s; q++) {
+        int a0 = q + s * p;
+        int a1 = a0 + s * m;
+        int a2 = a1 + s * m;
+        int out = q + s * 3 * p;
+
+        double sr = xr[a1] + xr[a2];
+        double si = xi[a1] + xi[a2];
+        double cr = xr[a0] - sr / 2;
+        double ci = xi[a0] - si / 2;
+
+        // -i d sin(60) (a1 - a2)
+        double ur = sin60 * (xi[a1] - xi[a2]);
+        double ui = -sin60 * (xr[a1] - xr[a2]);
+
+        double b1r = cr + ur;
+        double b1i = ci + ui;
+        double b2r = cr - ur;
+        double b2i = ci - ui;
+
+        yr[out] = xr[a0] + sr;
+        yi[out] = xi[a0] + si;
+        yr[out + s] = b1r * w1r - b1i * w1i;
+        yi[out + s] = b1r * w1i + b1i * w1r;
+        yr[out + 2 * s] = b2r * w2r - b2i * w2i;
+        yi[out + 2 * s] = b2r * w2i + b2i * w2r;
+      }
+    }
+  }
+
+  private void radix4(int length, int s, double[] xr, double[] xi, double[] yr, double[] yi) {
+    int m = length / 4;
+
+    for (int p = 0; p < m; p++) {
+      double w1r = cos[p * s];
+      double w1i = sin[p * s];
+      double w2r = cos[2 * p * s];
+      double w2i = sin[2 * p * s];
+      double w3r = cos[3 * p * s];
+      double w3i = sin[3 * p * s];
+
+      for (int q = 0; q < s; q++) {
+        int a0 = q + s * p;
+        int a1 = a0 + s * m;
+        int a2 = a1 + s * m;
+        int a3 = a2 + s * m;
+        int out = q + s * 4 * p;
+
+        double sumR = xr[a0] + xr[a2];
+        double sumI = xi[a0] + xi[a2];
+        double difR = xr[a0] - xr[a2];
+        double difI = xi[a0] - xi[a2];
+        double oddSumR = xr[a1] + xr[a3];
+        double oddSumI = xi[a1] + xi[a3];
+
+        // -i d (a1 - a3)
+        double rotR = d * (xi[a1] - xi[a3]);
+        double rotI = -d * (xr[a1] - xr[a3]);
+
+        double b1r = difR + rotR;
+        double b1i = difI + rotI;
+        double b2r = sumR - oddSumR;
+        double b2i = sumI - oddSumI;
+        double b3r = difR - rotR;
+        double b3i = difI - rotI;
+
+        yr[out] = sumR + oddSumR;
+        yi[out] = sumI + oddSumI;
+        yr[out + s] = b1r * w1r - b1i * w1i;
+        yi[out + s] = b1r * w1i + b1i * w1r;
+        yr[out + 2 * s] = b2r * w2r - b2i * w2i;
+        yi[out + 2 * s] = b2r * w2i + b2i * w2r;
+        yr[out + 3 * s] = b3r * w3r - b3i * w3i;
+        yi[out + 3 * s] = b3r * w3i + b3i * w3r;
+      }
+    }
+  }
+
+  private void radixN(int radix, int length, int s, double[] xr, double[] xi, double[] yr, double[] yi) {
+    int m = length / radix;
+    double[] omegaRe = rootRe[radix];
+    double[] omegaIm = rootIm[radix];
+
+    for (int p = 0; p < m; p++) {
+      for (int q = 0; q < s; q++) {
+        int in = q + s * p;
+        int out = q + s * radix * p;
+
+        for (int k = 0; k < radix; k++) {
+          double br = 0;
+          double bi = 0;
+
+          for (int r = 0, j = 0; r < radix; r++, j = (j + k) % radix) {
+            double ar = xr[in + r * s * m];
+            double ai = xi[in + r * s * m];
+            br += ar * omegaRe[j] - ai * omegaIm[j];
+            bi += ar * omegaIm[j] + ai * omegaRe[j];
+          }
+
+          int w = p * k * s;
+          yr[out + k * s] = br * cos[w] - bi * sin[w];
+          yi[out + k * s] = br * sin[w] + bi * cos[w];
+        }
+      }
+    }
+  }
+}
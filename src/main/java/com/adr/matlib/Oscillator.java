@@ -0,0 +1,139 @@
+package com.adr.matlib;
+
+/**
+ * Sine wave a sin(2 pi f n + phase) generated by rotation instead of
+ * evaluating the sine at every sample.
+ *
+ * The oscillator keeps the point (cos, sin) of the current phase on the unit
+ * circle and multiplies it by the fixed rotation exp(2 pi i f) once per
+ * sample, which costs four multiplications and two additions. The rotation
+ * is exact only up to rounding, so the point would slowly drift in amplitude
+ * and phase; every {@link #RESYNC_INTERVAL} samples it is recomputed from the
+ * exact phase, which bounds the error near 1e-13 for any stream length.
+ *
+ * Frequencies are in cycles per sample. Instances are not thread-safe.
+ */
+public final class Oscillator {
+  /** Samples between exact recomputations of the phase */
+  public static final int RESYNC_INTERVAL = 1024;
+
+  private final double amplitude;
+  private final double frequency;
+  private final double phase;
+  private final double stepCos;
+  private final double stepSin;
+  private double cos;
+  private double sin;
+  private long position;
+
+  /**
+   * @param amplitude   Peak value a
+   * @param frequency   Cycles per sample f
+   * @param phase       Phase in radians at sample 0
+   */
+  public Oscillator(double amplitude, double frequency, double phase) {
+    this.amplitude = amplitude;
+    this.frequency = frequency;
+    this.phase = phase;
+    this.stepCos = Math.cos(2 * Math.PI * frequency);
+    this.stepSin = Math.sin(2 * Math.PI * frequency);
+  }
+
+  /**
+   * @return    Cycles per sample
+   */
+  public double frequency() {
+    return frequency;
+  }
+
+  /**
+   * @return    Index of the next sample
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * @return    Next sample
+   */
+  public double next() {
+    if (position % RESYNC_INTERVAL == 0) {
+      resync();
+    }
+
+    double value = amplitude * sin;
+    rotate();
+    position++;
+
+    return value;
+  }
+
+  /**
+   * Write the next samples
+   * @param output    Array receiving count samples
+   * @param offset    Index of the first sample
+   * @param count     Number of samples
+   */
+  public void generate(double[] output, int offset, int count) {
+    run(output, offset, count, false);
+  }
+
+  /**
+   * Add the next samples to a buffer, for additive synthesis
+   * @param output    Array whose count values starting at offset are increased
+   * @param offset    Index of the first sample
+   * @param count     Number of samples
+   */
+  public void add(double[] output, int offset, int count) {
+    run(output, offset, count, true);
+  }
+
+  /**
+   * Return to sample 0
+   */
+  public void reset() {
+    position = 0;
+  }
+
+  private void run(double[] output, int offset, int count, boolean accumulate) {
+    int done = 0;
+
+    while (done < count) {
+      if (position % RESYNC_INTERVAL == 0) {
+        resync();
+      }
+
+      // Rotate up to the next resync point without checking every sample
+      int run = (int) Math.min(count - done, RESYNC_INTERVAL - position % RESYNC_INTERVAL);
+      double c = cos;
+      double s = sin;
+      int end = offset + done + run;
+
+      for (int i = offset + done; i < end; i++) {
+        output[i] = (accumulate ? output[i] : 0) + amplitude * s;
+        double r = c * stepCos - s * stepSin;
+        s = s * stepCos + c * stepSin;
+        c = r;
+      }
+
+      cos = c;
+      sin = s;
+      done += run;
+      position += run;
+    }
+  }
+
+  private void rotate() {
+    double r = cos * stepCos - sin * stepSin;
+    sin = sin * stepCos + cos * stepSin;
+    cos = r;
+  }
+
+  private void resync() {
+    // Whole cycles are dropped before scaling so large positions keep their precision
+    double cycles = frequency * position;
+    double angle = 2 * Math.PI * (cycles - Math.floor(cycles)) + phase;
+    cos = Math.cos(angle);
+    sin = Math.sin(angle);
+  }
+}
@@ -0,0 +1,182 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Streaming FIR filter y[t] = sum_k h[k] x[t - k] by overlap-save.
+ *
+ * The kernel spectrum is computed once. Input is consumed in fixed blocks of
+ * {@link #blockSize()} samples; each block is prefixed with the last
+ * h.length - 1 input samples, transformed with one real FFT of length
+ * {@link #fftSize()}, multiplied by the kernel spectrum and transformed back,
+ * and the outputs that did not wrap around are exactly the next block of y.
+ * Memory is a handful of buffers of the FFT length no matter how long the
+ * stream runs, and every block costs the same.
+ *
+ * The filter starts from silence, so output t depends on inputs 0 to t only,
+ * and a full block of output is available once a full block of input has
+ * been given. {@link #flush()} ends the stream and returns the outputs of any
+ * partial block. Instances are not thread-safe.
+ */
+public final class OverlapSaveConvolver {
+  private final int kernelLength;
+  private final int blockSize;
+  private final RealFftPlan plan;
+  private final double[] kernelRe;
+  private final double[] kernelIm;
+  private final double[] frame;
+  private final double[] re;
+  private final double[] im;
+  private final double[] history;
+  private final double[] pending;
+  private int pendingCount;
+
+  /**
+   * Convolver with a block size of a few kernel lengths
+   * @param kernel    FIR coefficients h[0..m-1]
+   */
+  public OverlapSaveConvolver(double[] kernel) {
+    this(kernel, Math.max(4 * kernel.length, 256));
+  }
+
+  /**
+   * @param kernel      FIR coefficients h[0..m-1]
+   * @param blockSize   Minimum number of samples per block; rounded up to fill the FFT
+   */
+  public OverlapSaveConvolver(double[] kernel, int blockSize) {
+    if (kernel.length == 0 || blockSize < 1) {
+      throw new IllegalArgumentException(String.format("Kernel of length %s and block size %s", kernel.length, blockSize));
+    }
+
+    kernelLength = kernel.length;
+    plan = RealFftPlan.of(Correlation.fftSize(blockSize + kernelLength - 1));
+    this.blockSize = plan.size() - kernelLength + 1;
+
+    kernelRe = new double[plan.bins()];
+    kernelIm = new double[plan.bins()];
+    frame = new double[plan.size()];
+    re = new double[plan.bins()];
+    im = new double[plan.bins()];
+    history = new double[kernelLength - 1];
+    pending = new double[this.blockSize];
+
+    System.arraycopy(kernel, 0, frame, 0, kernelLength);
+    plan.forward(frame, kernelRe, kernelIm);
+  }
+
+  /**
+   * @return    Samples consumed and produced by each block
+   */
+  public int blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @return    Length of the transforms, block size + kernel length - 1
+   */
+  public int fftSize() {
+    return plan.size();
+  }
+
+  /**
+   * Filter exactly one block without allocating. Must not be mixed with
+   * partially filled blocks from {@link #process(double[])}.
+   * @param input           Array holding blockSize input samples
+   * @param offset          Index of the first input sample
+   * @param output          Array receiving blockSize output samples
+   * @param outputOffset    Index of the first output sample
+   */
+  public void processBlock(double[] input, int offset, double[] output, int outputOffset) {
+    if (pendingCount != 0) {
+      throw new IllegalStateException("Partial block of " + pendingCount + " samples pending");
+    }
+
+    filter(input, offset, blockSize, output, outputOffset);
+  }
+
+  /**
+   * Append samples to the stream
+   * @param input   Next input samples, any number
+   * @return        Every output block completed by them, possibly empty
+   */
+  public double[] process(double[] input) {
+    int blocks = (pendingCount + input.length) / blockSize;
+    double[] output = new double[blocks * blockSize];
+    int consumed = 0;
+    int produced = 0;
+
+    while (consumed < input.length) {
+      int count = Math.min(blockSize - pendingCount, input.length - consumed);
+
+      if (pendingCount == 0 && count == blockSize) {
+        filter(input, consumed, blockSize, output, produced);
+      } else {
+        System.arraycopy(input, consumed, pending, pendingCount, count);
+        pendingCount += count;
+
+        if (pendingCount < blockSize) {
+          break;
+        }
+
+        filter(pending, 0, blockSize, output, produced);
+        pendingCount = 0;
+      }
+
+      consumed += count;
+      produced += blockSize;
+    }
+
+    return output;
+  }
+
+  /**
+   * End the stream: return the outputs of the buffered partial block and
+   * reset to silence
+   * @return    One output per buffered input sample
+   */
+  public double[] flush() {
+    double[] output = new double[pendingCount];
+    double[] block = new double[blockSize];
+
+    filter(pending, 0, pendingCount, block, 0);
+    System.arraycopy(block, 0, output, 0, pendingCount);
+    reset();
+
+    return output;
+  }
+
+  /**
+   * Drop buffered input and history, as if the stream had just started
+   */
+  public void reset() {
+    pendingCount = 0;
+    Arrays.fill(history, 0);
+  }
+
+  /**
+   * Filter count samples, zero-extended to a whole block, and write blockSize outputs
+   */
+  private void filter(double[] input, int offset, int count, double[] output, int outputOffset) {
+    int overlap = kernelLength - 1;
+
+    System.arraycopy(history, 0, frame, 0, overlap);
+    System.arraycopy(input, offset, frame, overlap, count);
+    Arrays.fill(frame, overlap + count, frame.length, 0);
+
+    // The last kernelLength - 1 samples of this frame start the next one
+    System.arraycopy(frame, frame.length - overlap, history, 0, overlap);
+
+    plan.forward(frame, re, im);
+
+    for (int k = 0; k < re.length; k++) {
+      double r = re[k] * kernelRe[k] - im[k] * kernelIm[k];
+      im[k] = re[k] * kernelIm[k] + im[k] * kernelRe[k];
+      re[k] = r;
+    }
+
+    plan.inverse(re, im, frame);
+
+    // Outputs before index overlap wrapped around; the rest are y for this block
+    System.arraycopy(frame, overlap, output, outputOffset, blockSize);
+  }
+}
@@ -0,0 +1,65 @@
+package com.adr.matlib;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a body over an index range on a fork-join pool, halving the range
+ * until pieces are no longer than a grain size.
+ */
+final class ParallelRange {
+
+  interface Body {
+    /**
+     * Process indices [from, to)
+     */
+    void run(int from, int to);
+  }
+
+  private ParallelRange() {
+  }
+
+  /**
+   * Run body over [from, to) on pool, in pieces of at most grain indices
+   * @param pool    Pool running the pieces, or null to run on the calling thread
+   * @param from    First index
+   * @param to      End of the range, exclusive
+   * @param grain   Largest piece run as a single task
+   * @param body    Work for a piece of the range
+   */
+  static void forRange(ForkJoinPool pool, int from, int to, int grain, Body body) {
+    if (pool == null || to - from <= grain) {
+      body.run(from, to);
+      return;
+    }
+
+    pool.invoke(new RangeTask(from, to, Math.max(1, grain), body));
+  }
+
+  private static final class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int grain;
+    private final transient Body body;
+
+    RangeTask(int from, int to, int grain, Body body) {
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+      this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        body.run(from, to);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+    }
+  }
+}
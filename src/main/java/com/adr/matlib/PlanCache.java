@@ -0,0 +1,82 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded concurrent map from a long key to an immutable transform plan.
+ *
+ * The cached keys and plans live in an immutable table that is replaced
+ * whole on every insertion, so a lookup is a lock-free scan of a primitive
+ * {@code long[]} that neither boxes the key nor allocates. Callers should
+ * pass a non-capturing factory so a cache hit creates no objects at all.
+ * When the cache is full the oldest plan is dropped to make room; dropped
+ * plans are simply rebuilt on their next use, so the bound only limits
+ * memory, not correctness.
+ */
+final class PlanCache<T> {
+
+  private static final class Table {
+    private final long[] keys;
+    private final Object[] plans;
+
+    Table(long[] keys, Object[] plans) {
+      this.keys = keys;
+      this.plans = plans;
+    }
+  }
+
+  private final int capacity;
+  private volatile Table table = new Table(new long[0], new Object[0]);
+
+  PlanCache(int capacity) {
+    this.capacity = capacity;
+  }
+
+  T get(long key, LongFunction<T> factory) {
+    T plan = find(table, key);
+
+    if (plan != null) {
+      return plan;
+    }
+
+    plan = factory.apply(key);
+
+    synchronized (this) {
+      Table current = table;
+      T existing = find(current, key);
+
+      if (existing != null) {
+        return existing;
+      }
+
+      // Keep the newest capacity - 1 entries and append this one
+      int keep = Math.min(current.keys.length, capacity - 1);
+      int drop = current.keys.length - keep;
+      long[] keys = Arrays.copyOfRange(current.keys, drop, drop + keep + 1);
+      Object[] plans = Arrays.copyOfRange(current.plans, drop, drop + keep + 1);
+      keys[keep] = key;
+      plans[keep] = plan;
+      table = new Table(keys, plans);
+    }
+
+    return plan;
+  }
+
+  int size() {
+    return table.keys.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T find(Table table, long key) {
+    long[] keys = table.keys;
+
+    for (int i = keys.length - 1; i >= 0; i--) {
+      if (keys[i] == key) {
+        return (T) table.plans[i];
+      }
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,209 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed FFT of real sequences of one length.
+ *
+ * The spectrum X of n real samples is Hermitian, X[n - k] = conj(X[k]), so
+ * only the n/2 + 1 bins X[0..n/2] are computed and stored. The n samples are
+ * packed as n/2 complex values z[m] = x[2m] + i x[2m + 1], transformed with a
+ * complex {@link FftPlan} of half the length, and the even and odd halves are
+ * separated again with one pass of twiddle factors. Compared to transforming
+ * n complex values with zero imaginary parts this does half the arithmetic
+ * and needs half the memory.
+ *
+ * The inverse runs the same steps backwards and is scaled by 1/n, like the
+ * complex inverse transform.
+ *
+ * Odd lengths cannot be packed in pairs; they are transformed as complex
+ * sequences of length n in per-thread scratch buffers and still return the
+ * n/2 + 1 unique bins.
+ */
+public final class RealFftPlan {
+  private static final PlanCache<RealFftPlan> CACHE = new PlanCache<>(FftPlan.CACHE_SIZE);
+
+  private final int n;
+  private final int half;
+  private final FftPlan forward;
+  private final FftPlan inverse;
+  private final double[] cos;
+  private final double[] sin;
+  private final ThreadLocal<double[][]> buffers;
+
+  /**
+   * Build a plan without caching it
+   * @param n   Number of real samples
+   */
+  public RealFftPlan(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("Real FFT length must be positive, got " + n);
+    }
+
+    this.n = n;
+    this.half = n / 2;
+
+    if (n % 2 != 0) {
+      forward = FftPlan.of(n, 1);
+      inverse = FftPlan.of(n, -1);
+      cos = null;
+      sin = null;
+      buffers = ThreadLocal.withInitial(() -> new double[2][n]);
+
+      return;
+    }
+
+    forward = FftPlan.of(half, 1);
+    inverse = FftPlan.of(half, -1);
+    buffers = null;
+
+    // W^k = exp(-2 pi i k / n)
+    cos = new double[half];
+    sin = new double[half];
+
+    for (int k = 0; k < half; k++) {
+      double angle = -2 * Math.PI * k / n;
+      cos[k] = Math.cos(angle);
+      sin[k] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * Cached plan for a length
+   * @param n   Number of real samples
+   * @return    Shared plan
+   */
+  public static RealFftPlan of(int n) {
+    return CACHE.get(n, key -> new RealFftPlan((int) key));
+  }
+
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Number of unique bins, n/2 + 1
+   * @return    Length of the spectrum arrays
+   */
+  public int bins() {
+    return half + 1;
+  }
+
+  /**
+   * Forward transform of real samples. x is not modified.
+   * @param x     n real samples
+   * @param re    Real parts of bins 0..n/2, length n/2 + 1
+   * @param im    Imaginary parts of bins 0..n/2, length n/2 + 1
+   */
+  public void forward(double[] x, double[] re, double[] im) {
+    checkLengths(x, re, im);
+
+    if (buffers != null) {
+      forwardOdd(x, re, im);
+      return;
+    }
+
+    for (int m = 0; m < half; m++) {
+      re[m] = x[2 * m];
+      im[m] = x[2 * m + 1];
+    }
+
+    forward.transform(re, 0, im, 0, 1);
+
+    double z0 = re[0];
+    re[0] = z0 + im[0];
+    re[half] = z0 - im[0];
+    im[0] = 0;
+    im[half] = 0;
+
+    // Bins k and half - k are built from Z[k] and Z[half - k], so each pair is updated together
+    for (int k = 1; k <= half / 2; k++) {
+      int j = half - k;
+
+      double evenRe = (re[k] + re[j]) / 2;
+      double evenIm = (im[k] - im[j]) / 2;
+      double oddRe = (im[k] + im[j]) / 2;
+      double oddIm = -(re[k] - re[j]) / 2;
+
+      double tr = cos[k] * oddRe - sin[k] * oddIm;
+      double ti = cos[k] * oddIm + sin[k] * oddRe;
+
+      re[k] = evenRe + tr;
+      im[k] = evenIm + ti;
+      re[j] = evenRe - tr;
+      im[j] = ti - evenIm;
+    }
+  }
+
+  /**
+   * Inverse transform back to real samples. re and im are not modified.
+   * @param re    Real parts of bins 0..n/2, length n/2 + 1
+   * @param im    Imaginary parts of bins 0..n/2, length n/2 + 1
+   * @param x     n real samples, overwritten
+   */
+  public void inverse(double[] re, double[] im, double[] x) {
+    checkLengths(x, re, im);
+
+    if (buffers != null) {
+      inverseOdd(re, im, x);
+      return;
+    }
+
+    // Rebuild Z = E + iO interleaved in x, then one complex inverse of half the length
+    for (int k = 0; k < half; k++) {
+      int j = half - k;
+
+      double evenRe = (re[k] + re[j]) / 2;
+      double evenIm = (im[k] - im[j]) / 2;
+      double dr = (re[k] - re[j]) / 2;
+      double di = (im[k] + im[j]) / 2;
+
+      // O = (X[k] - conj(X[half - k])) / 2 * W^-k
+      double oddRe = dr * cos[k] + di * sin[k];
+      double oddIm = di * cos[k] - dr * sin[k];
+
+      x[2 * k] = evenRe - oddIm;
+      x[2 * k + 1] = evenIm + oddRe;
+    }
+
+    inverse.transform(x, 0, x, 1, 2);
+  }
+
+  private void forwardOdd(double[] x, double[] re, double[] im) {
+    double[][] buffer = buffers.get();
+    double[] zr = buffer[0];
+    double[] zi = buffer[1];
+
+    System.arraycopy(x, 0, zr, 0, n);
+    Arrays.fill(zi, 0);
+    forward.transform(zr, zi);
+
+    System.arraycopy(zr, 0, re, 0, half + 1);
+    System.arraycopy(zi, 0, im, 0, half + 1);
+  }
+
+  private void inverseOdd(double[] re, double[] im, double[] x) {
+    double[][] buffer = buffers.get();
+    double[] zr = buffer[0];
+    double[] zi = buffer[1];
+
+    for (int k = 0; k <= half; k++) {
+      zr[k] = re[k];
+      zi[k] = im[k];
+    }
+
+    for (int k = 1; k <= half; k++) {
+      zr[n - k] = re[k];
+      zi[n - k] = -im[k];
+    }
+
+    inverse.transform(zr, zi);
+    System.arraycopy(zr, 0, x, 0, n);
+  }
+
+  private void checkLengths(double[] x, double[] re, double[] im) {
+    if (x.length != n || re.length != half + 1 || im.length != half + 1) {
+      throw new IllegalArgumentException(String.format("Real plan of length %s given %s samples and %s x %s bins", n, x.length, re.length, im.length));
+    }
+  }
+}
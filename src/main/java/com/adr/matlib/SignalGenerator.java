@@ -0,0 +1,141 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Sum of sine waves, generated in bulk or streamed in chunks.
+ *
+ * Every tone is an {@link Oscillator}, so no sine is evaluated per sample.
+ * Blocks are filled one tone at a time, which keeps each oscillator's state
+ * in registers. Besides arbitrary tone sets there are band-limited square
+ * and sawtooth waves, built from their Fourier series truncated below the
+ * Nyquist frequency so they do not alias the way sampled ideal waveforms do.
+ *
+ * Frequencies are in cycles per sample. Instances are not thread-safe.
+ */
+public final class SignalGenerator {
+  private final Oscillator[] tones;
+
+  /**
+   * @param amplitudes    Peak value of each tone
+   * @param frequencies   Cycles per sample of each tone
+   * @param phases        Phase in radians of each tone at sample 0
+   */
+  public SignalGenerator(double[] amplitudes, double[] frequencies, double[] phases) {
+    if (amplitudes.length != frequencies.length || amplitudes.length != phases.length) {
+      throw new IllegalArgumentException(String.format("Tone parameters of lengths %s, %s and %s", amplitudes.length, frequencies.length, phases.length));
+    }
+
+    tones = new Oscillator[amplitudes.length];
+
+    for (int i = 0; i < tones.length; i++) {
+      tones[i] = new Oscillator(amplitudes[i], frequencies[i], phases[i]);
+    }
+  }
+
+  /**
+   * Band-limited square wave with values near -a and a, rising at sample 0
+   * @param amplitude   Level a
+   * @param frequency   Cycles per sample, in (0, 0.5)
+   * @return            Generator of the odd harmonics 4a / (pi k) sin(2 pi k f n) below Nyquist
+   */
+  public static SignalGenerator square(double amplitude, double frequency) {
+    int harmonics = harmonics(frequency);
+    int count = (harmonics + 1) / 2;
+    double[] amplitudes = new double[count];
+    double[] frequencies = new double[count];
+
+    for (int i = 0; i < count; i++) {
+      int k = 2 * i + 1;
+      amplitudes[i] = 4 * amplitude / (Math.PI * k);
+      frequencies[i] = k * frequency;
+    }
+
+    return new SignalGenerator(amplitudes, frequencies, new double[count]);
+  }
+
+  /**
+   * Band-limited sawtooth rising from -a to a once per cycle, zero at sample 0
+   * @param amplitude   Level a
+   * @param frequency   Cycles per sample, in (0, 0.5)
+   * @return            Generator of the harmonics (-1)^(k+1) 2a / (pi k) sin(2 pi k f n) below Nyquist
+   */
+  public static SignalGenerator saw(double amplitude, double frequency) {
+    int count = harmonics(frequency);
+    double[] amplitudes = new double[count];
+    double[] frequencies = new double[count];
+
+    for (int i = 0; i < count; i++) {
+      int k = i + 1;
+      amplitudes[i] = (k % 2 == 0 ? -2 : 2) * amplitude / (Math.PI * k);
+      frequencies[i] = k * frequency;
+    }
+
+    return new SignalGenerator(amplitudes, frequencies, new double[count]);
+  }
+
+  /**
+   * @return    Number of sine waves summed
+   */
+  public int tones() {
+    return tones.length;
+  }
+
+  /**
+   * Write the next samples
+   * @param output    Array receiving count samples
+   * @param offset    Index of the first sample
+   * @param count     Number of samples
+   */
+  public void fill(double[] output, int offset, int count) {
+    if (tones.length == 0) {
+      Arrays.fill(output, offset, offset + count, 0);
+      return;
+    }
+
+    tones[0].generate(output, offset, count);
+
+    for (int i = 1; i < tones.length; i++) {
+      tones[i].add(output, offset, count);
+    }
+  }
+
+  /**
+   * Overwrite a buffer with the next samples
+   * @param output    Array filled completely
+   */
+  public void fill(double[] output) {
+    fill(output, 0, output.length);
+  }
+
+  /**
+   * @param count   Number of samples
+   * @return        The next count samples in a new array
+   */
+  public double[] next(int count) {
+    double[] output = new double[count];
+    fill(output, 0, count);
+
+    return output;
+  }
+
+  /**
+   * Return to sample 0
+   */
+  public void reset() {
+    for (Oscillator tone : tones) {
+      tone.reset();
+    }
+  }
+
+  /**
+   * Number of harmonics k with k f below the Nyquist frequency 0.5
+   */
+  private static int harmonics(double frequency) {
+    if (!(frequency > 0 && frequency < 0.5)) {
+      throw new IllegalArgumentException("Frequency must be in (0, 0.5) cycles per sample, got " + frequency);
+    }
+
+    return (int) Math.ceil(0.5 / frequency) - 1;
+  }
+}
@@ -0,0 +1,123 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Selected DFT bins of the most recent samples of a stream, updated on every
+ * sample.
+ *
+ * After each sample the bins equal what {@link Goertzel} would compute for
+ * the last length samples, oldest first, with zeros before the stream
+ * started. A new sample x and the sample o leaving the window update bin k by
+ * X[k] = (X[k] + x - o) exp(2 pi i k / length), so K bins cost O(K) per
+ * sample regardless of the window length.
+ *
+ * That rotation has unit magnitude, so rounding errors are never damped.
+ * Once per window, when the ring of past samples is in order again, every
+ * bin is recomputed exactly with the Goertzel recurrence, which adds O(K)
+ * per sample amortized and keeps the error bounded on unbounded streams.
+ * Instances are not thread-safe.
+ */
+public final class SlidingDft {
+  private final Goertzel goertzel;
+  private final int n;
+  private final double[] window;
+  private final double[] re;
+  private final double[] im;
+  private int slot;
+
+  /**
+   * @param length    Number of most recent samples covered
+   * @param bins      Bin indices to track, each in [0, length)
+   */
+  public SlidingDft(int length, int[] bins) {
+    goertzel = new Goertzel(length, bins);
+    n = length;
+    window = new double[length];
+    re = new double[bins.length];
+    im = new double[bins.length];
+  }
+
+  /**
+   * @return    Number of samples in the window
+   */
+  public int length() {
+    return n;
+  }
+
+  /**
+   * @return    Number of bins tracked
+   */
+  public int size() {
+    return re.length;
+  }
+
+  /**
+   * Slide the window forward by one sample
+   * @param sample    Newest sample
+   */
+  public void update(double sample) {
+    double delta = sample - window[slot];
+    window[slot] = sample;
+
+    if (++slot == n) {
+      slot = 0;
+      goertzel.transform(window, re, im);
+      return;
+    }
+
+    for (int i = 0; i < re.length; i++) {
+      double c = goertzel.cos(i);
+      double s = goertzel.sin(i);
+      double r = re[i] + delta;
+      re[i] = r * c - im[i] * s;
+      im[i] = r * s + im[i] * c;
+    }
+  }
+
+  /**
+   * Slide the window forward by several samples
+   * @param samples   Newest samples, oldest first
+   */
+  public void update(double[] samples) {
+    for (double sample : samples) {
+      update(sample);
+    }
+  }
+
+  /**
+   * @param i   Position in the bin list
+   * @return    Real part of the bin
+   */
+  public double re(int i) {
+    return re[i];
+  }
+
+  /**
+   * @param i   Position in the bin list
+   * @return    Imaginary part of the bin
+   */
+  public double im(int i) {
+    return im[i];
+  }
+
+  /**
+   * Squared magnitudes of every bin
+   * @param power   One value per bin, overwritten
+   */
+  public void power(double[] power) {
+    for (int i = 0; i < re.length; i++) {
+      power[i] = re[i] * re[i] + im[i] * im[i];
+    }
+  }
+
+  /**
+   * Forget every sample, as if the stream had just started
+   */
+  public void reset() {
+    Arrays.fill(window, 0);
+    Arrays.fill(re, 0);
+    Arrays.fill(im, 0);
+    slot = 0;
+  }
+}
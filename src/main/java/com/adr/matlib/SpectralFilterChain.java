@@ -0,0 +1,287 @@
+package com.adr.matlib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Frequency-domain mask filters composed before they touch any data.
+ *
+ * Every stage is a mask that is constant between a few breakpoints, such as
+ * the band of bins kept by a low pass and its mirror image at the top of the
+ * spectrum. A chain stores the stages symbolically. When it is applied to a
+ * spectrum of length N it merges their breakpoints, multiplies the stage
+ * gains within each resulting segment, and scales the spectrum in place in a
+ * single pass, leaving segments with unit gain untouched. No mask array of
+ * length N is ever built, however many stages there are.
+ *
+ * The stages reproduce the masks of the {@link MatLib} filters exactly:
+ * {@link #lowPass(int)} keeps bins [0, n) and [N - n, N), {@link #highPass(int)}
+ * removes bins [0, n), and {@link #bandPass(int, int)} and
+ * {@link #notch(int, int)} select bins [lower, upper] and their mirror
+ * [N - upper, N - lower). Bins outside [0, N) are ignored, so one chain can
+ * be applied to spectra of any length.
+ *
+ * The mirrored intervals are placed from the top of a full-length N-bin
+ * spectrum, such as the output of {@link Fft#transform(double[], double[], int)}.
+ * The N / 2 + 1 bins of a real transform ({@link RealFftPlan},
+ * {@link Fft#realForward(double[], double[], double[])}) must go through
+ * {@link #applyHalfSpectrum(double[], double[], int)} with the full length N;
+ * passing them to the other apply methods would treat their top bins as the
+ * negative frequencies.
+ *
+ * Chains are immutable: adding a stage returns a new chain, and one chain
+ * can be shared between threads.
+ */
+public final class SpectralFilterChain {
+
+  private static final class Stage {
+    private final IntFunction<int[]> intervals;
+    private final double inside;
+    private final double outside;
+
+    Stage(IntFunction<int[]> intervals, double inside, double outside) {
+      this.intervals = intervals;
+      this.inside = inside;
+      this.outside = outside;
+    }
+  }
+
+  private final List<Stage> stages;
+
+  /**
+   * Chain with no stages, which leaves every bin unchanged
+   */
+  public SpectralFilterChain() {
+    this(Collections.<Stage>emptyList());
+  }
+
+  private SpectralFilterChain(List<Stage> stages) {
+    this.stages = stages;
+  }
+
+  /**
+   * @return    Number of stages
+   */
+  public int stages() {
+    return stages.size();
+  }
+
+  /**
+   * Keep the n lowest positive and negative frequency bins
+   * @param n   Bins kept at each end of the spectrum
+   * @return    Chain with the stage added
+   */
+  public SpectralFilterChain lowPass(int n) {
+    return with(length -> new int[]{0, n, length - n, length}, 1, 0);
+  }
+
+  /**
+   * Remove the n lowest bins
+   * @param n   Bins removed from the start of the spectrum
+   * @return    Chain with the stage added
+   */
+  public SpectralFilterChain highPass(int n) {
+    return with(length -> new int[]{0, n}, 0, 1);
+  }
+
+  /**
+   * Keep bins lowerBound to upperBound and their mirror images
+   * @param lowerBound    First bin kept
+   * @param upperBound    Last bin kept
+   * @return              Chain with the stage added
+   */
+  public SpectralFilterChain bandPass(int lowerBound, int upperBound) {
+    return with(band(lowerBound, upperBound), 1, 0);
+  }
+
+  /**
+   * Remove bins lowerBound to upperBound and their mirror images
+   * @param lowerBound    First bin removed
+   * @param upperBound    Last bin removed
+   * @return              Chain with the stage added
+   */
+  public SpectralFilterChain notch(int lowerBound, int upperBound) {
+    return with(band(lowerBound, upperBound), 0, 1);
+  }
+
+  /**
+   * Scale bins lowerBound to upperBound and their mirror images
+   * @param lowerBound    First bin scaled
+   * @param upperBound    Last bin scaled
+   * @param gain          Factor applied to those bins
+   * @return              Chain with the stage added
+   */
+  public SpectralFilterChain gain(int lowerBound, int upperBound, double gain) {
+    return with(band(lowerBound, upperBound), gain, 1);
+  }
+
+  /**
+   * Chain running the stages of this chain and then those of another
+   * @param next    Stages applied afterwards
+   * @return        Combined chain
+   */
+  public SpectralFilterChain then(SpectralFilterChain next) {
+    List<Stage> combined = new ArrayList<>(stages);
+    combined.addAll(next.stages);
+
+    return new SpectralFilterChain(Collections.unmodifiableList(combined));
+  }
+
+  /**
+   * Filter a full-length spectrum with real values, or any real sequence
+   * indexed by bin, in place
+   * @param data    All N bins, scaled in place
+   */
+  public void apply(double[] data) {
+    scale(data, null, data.length, data.length);
+  }
+
+  /**
+   * Filter a full-length complex spectrum in place
+   * @param re    Real parts of all N bins, scaled in place
+   * @param im    Imaginary parts of the same length, scaled in place
+   */
+  public void apply(double[] re, double[] im) {
+    if (re.length != im.length) {
+      throw new IllegalArgumentException(String.format("Spectrum parts of lengths %s and %s", re.length, im.length));
+    }
+
+    scale(re, im, re.length, re.length);
+  }
+
+  /**
+   * Filter the non-negative frequency half of the spectrum of N real
+   * samples in place. Bin k is scaled exactly as bin k of the full spectrum
+   * would be by {@link #apply(double[], double[])}.
+   * @param re        Real parts of bins 0 to N / 2, scaled in place
+   * @param im        Imaginary parts of the same bins, scaled in place
+   * @param length    Length N of the full spectrum
+   */
+  public void applyHalfSpectrum(double[] re, double[] im, int length) {
+    if (re.length != length / 2 + 1 || im.length != re.length) {
+      throw new IllegalArgumentException(String.format("Half spectrum of %s samples given %s and %s bins", length, re.length, im.length));
+    }
+
+    scale(re, im, length, re.length);
+  }
+
+  /**
+   * Combined mask for one spectrum length, for inspection
+   * @param length    Spectrum length N
+   * @return          Gain of every bin
+   */
+  public double[] response(int length) {
+    double[] response = new double[length];
+    Arrays.fill(response, 1);
+    apply(response);
+
+    return response;
+  }
+
+  /**
+   * Scale bins [0, count) of re, and of im unless it is null, by the mask for
+   * a spectrum of length N
+   */
+  private void scale(double[] re, double[] im, int length, int count) {
+    int[][] intervals = intervals(length);
+    int[] breakpoints = breakpoints(intervals, length);
+
+    for (int s = 0; s + 1 < breakpoints.length && breakpoints[s] < count; s++) {
+      double gain = gain(intervals, breakpoints[s]);
+      int end = Math.min(breakpoints[s + 1], count);
+
+      if (gain != 1) {
+        for (int i = breakpoints[s]; i < end; i++) {
+          re[i] *= gain;
+        }
+
+        if (im != null) {
+          for (int i = breakpoints[s]; i < end; i++) {
+            im[i] *= gain;
+          }
+        }
+      }
+    }
+  }
+
+  private SpectralFilterChain with(IntFunction<int[]> intervals, double inside, double outside) {
+    List<Stage> added = new ArrayList<>(stages);
+    added.add(new Stage(intervals, inside, outside));
+
+    return new SpectralFilterChain(Collections.unmodifiableList(added));
+  }
+
+  private static IntFunction<int[]> band(int lowerBound, int upperBound) {
+    return length -> new int[]{lowerBound, upperBound + 1, length - upperBound, length - lowerBound};
+  }
+
+  /**
+   * Bin intervals [start, end) of every stage for one spectrum length
+   */
+  private int[][] intervals(int length) {
+    int[][] intervals = new int[stages.size()][];
+
+    for (int i = 0; i < intervals.length; i++) {
+      intervals[i] = stages.get(i).intervals.apply(length);
+    }
+
+    return intervals;
+  }
+
+  /**
+   * Sorted distinct segment boundaries of every stage, clamped to [0, length]
+   */
+  private static int[] breakpoints(int[][] intervals, int length) {
+    int count = 2;
+
+    for (int[] bounds : intervals) {
+      count += bounds.length;
+    }
+
+    int[] points = new int[count];
+    count = 0;
+    points[count++] = 0;
+    points[count++] = length;
+
+    for (int[] bounds : intervals) {
+      for (int bound : bounds) {
+        points[count++] = Math.min(Math.max(bound, 0), length);
+      }
+    }
+
+    Arrays.sort(points, 0, count);
+    int distinct = 0;
+
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || points[i] != points[distinct - 1]) {
+        points[distinct++] = points[i];
+      }
+    }
+
+    return Arrays.copyOf(points, distinct);
+  }
+
+  /**
+   * Product of every stage's gain on the segment starting at bin
+   */
+  private double gain(int[][] intervals, int bin) {
+    double gain = 1;
+
+    for (int s = 0; s < intervals.length; s++) {
+      int[] bounds = intervals[s];
+      boolean inside = false;
+
+      for (int i = 0; i < bounds.length; i += 2) {
+        inside |= bin >= bounds[i] && bin < bounds[i + 1];
+      }
+
+      Stage stage = stages.get(s);
+      gain *= inside ? stage.inside : stage.outside;
+    }
+
+    return gain;
+  }
+}
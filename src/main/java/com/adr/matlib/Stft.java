@@ -0,0 +1,309 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Short-time Fourier transform of real signals.
+ *
+ * Frame m covers samples [m hop, m hop + frameLength). It is multiplied by a
+ * periodic window, zero padded to the FFT size, and transformed with a
+ * {@link RealFftPlan}, giving fftSize / 2 + 1 bins. Only whole frames are
+ * produced, so a signal of n samples has (n - frameLength) / hop + 1 frames.
+ *
+ * Spectrograms are written row by row, one frame per row, into arrays or
+ * matrices the caller allocates once and can reuse. Frames are independent,
+ * so batches are split over a fork-join pool, and each thread keeps its own
+ * scratch buffers. {@link #stream()} produces the same frames from input
+ * arriving in chunks, and {@link #inverse(double[], double[], int)} rebuilds
+ * a signal by weighted overlap-add.
+ *
+ * An Stft is immutable and can be shared between threads; its streams are not.
+ */
+public final class Stft {
+  /** Samples transformed per parallel task, so small frames are batched together */
+  static final int PARALLEL_GRAIN = 1 << 14;
+
+  /** Window power sum below which overlap-add treats a sample as not covered */
+  static final double COVERAGE_THRESHOLD = 1e-10;
+
+  /**
+   * Receiver of streamed frames
+   */
+  public interface FrameSink {
+    /**
+     * Called once per frame, in order. The arrays are reused for the next
+     * frame and must be copied to be kept.
+     * @param index   Frame number m, starting at sample m hop of the stream
+     * @param re      Real parts of the bins
+     * @param im      Imaginary parts of the bins
+     */
+    void frame(long index, double[] re, double[] im);
+  }
+
+  /**
+   * Frames of one stream, emitted as soon as their last sample arrives
+   */
+  public final class Stream {
+    private final double[] frame = new double[frameLength];
+    private final double[] re = new double[plan.bins()];
+    private final double[] im = new double[plan.bins()];
+    private final double[] padded = new double[plan.size()];
+    private int filled;
+    private long frames;
+
+    private Stream() {
+    }
+
+    /**
+     * Consume the next samples of the stream
+     * @param samples   Any number of samples
+     * @param sink      Receiver of every frame completed by them
+     */
+    public void process(double[] samples, FrameSink sink) {
+      int consumed = 0;
+
+      while (consumed < samples.length) {
+        int count = Math.min(frameLength - filled, samples.length - consumed);
+        System.arraycopy(samples, consumed, frame, filled, count);
+        filled += count;
+        consumed += count;
+
+        if (filled == frameLength) {
+          analyze(frame, 0, padded, re, im);
+          sink.frame(frames++, re, im);
+          System.arraycopy(frame, hop, frame, 0, frameLength - hop);
+          filled = frameLength - hop;
+        }
+      }
+    }
+
+    /**
+     * @return    Number of frames emitted so far
+     */
+    public long frames() {
+      return frames;
+    }
+
+    /**
+     * Drop buffered samples and start counting frames from 0
+     */
+    public void reset() {
+      filled = 0;
+      frames = 0;
+    }
+  }
+
+  private final int frameLength;
+  private final int hop;
+  private final double[] window;
+  private final RealFftPlan plan;
+  private final ThreadLocal<double[][]> scratch;
+
+  /**
+   * Transform without zero padding
+   * @param frameLength   Samples per frame, also the FFT size
+   * @param hop           Samples between frame starts, from 1 to frameLength
+   * @param window        Window applied to every frame
+   */
+  public Stft(int frameLength, int hop, Window window) {
+    this(frameLength, hop, frameLength, window);
+  }
+
+  /**
+   * @param frameLength   Samples per frame
+   * @param hop           Samples between frame starts, from 1 to frameLength
+   * @param fftSize       Transform length, at least frameLength
+   * @param window        Window applied to every frame
+   */
+  public Stft(int frameLength, int hop, int fftSize, Window window) {
+    if (frameLength < 1 || hop < 1 || hop > frameLength || fftSize < frameLength) {
+      throw new IllegalArgumentException(String.format("Frames of %s samples every %s samples in FFTs of %s", frameLength, hop, fftSize));
+    }
+
+    this.frameLength = frameLength;
+    this.hop = hop;
+    this.window = window.coefficients(frameLength);
+    this.plan = RealFftPlan.of(fftSize);
+    this.scratch = ThreadLocal.withInitial(() -> new double[][]{new double[fftSize], new double[plan.bins()], new double[plan.bins()]});
+  }
+
+  /**
+   * @return    Samples per frame
+   */
+  public int frameLength() {
+    return frameLength;
+  }
+
+  /**
+   * @return    Samples between frame starts
+   */
+  public int hop() {
+    return hop;
+  }
+
+  /**
+   * @return    Transform length, at least frameLength
+   */
+  public int fftSize() {
+    return plan.size();
+  }
+
+  /**
+   * @return    Bins per frame, fftSize / 2 + 1
+   */
+  public int bins() {
+    return plan.bins();
+  }
+
+  /**
+   * @param samples   Signal length
+   * @return          Number of whole frames in it
+   */
+  public int frames(int samples) {
+    return samples < frameLength ? 0 : (samples - frameLength) / hop + 1;
+  }
+
+  /**
+   * @param frames    Number of frames
+   * @return          Number of samples they cover
+   */
+  public int signalLength(int frames) {
+    return frames == 0 ? 0 : (frames - 1) * hop + frameLength;
+  }
+
+  /**
+   * Complex spectrogram on the calling thread
+   * @param x     Signal
+   * @param re    Real parts, frames(x.length) x bins() row-major, overwritten
+   * @param im    Imaginary parts, same layout, overwritten
+   */
+  public void transform(double[] x, double[] re, double[] im) {
+    transform(x, re, im, null);
+  }
+
+  /**
+   * Complex spectrogram with frames split over a pool
+   * @param x       Signal
+   * @param re      Real parts, frames(x.length) x bins() row-major, overwritten
+   * @param im      Imaginary parts, same layout, overwritten
+   * @param pool    Pool running the frames, or null for the calling thread
+   */
+  public void transform(double[] x, double[] re, double[] im, ForkJoinPool pool) {
+    int frames = frames(x.length);
+    int bins = plan.bins();
+    checkSpectrogram(frames, re.length, im.length);
+
+    ParallelRange.forRange(pool, 0, frames, grain(), (from, to) -> {
+      double[][] buffers = scratch.get();
+
+      for (int m = from; m < to; m++) {
+        analyze(x, m * hop, buffers[0], buffers[1], buffers[2]);
+        System.arraycopy(buffers[1], 0, re, m * bins, bins);
+        System.arraycopy(buffers[2], 0, im, m * bins, bins);
+      }
+    });
+  }
+
+  /**
+   * Power spectrogram |X|^2 with frames split over a pool
+   * @param x         Signal
+   * @param power     frames(x.length) x bins() matrix, overwritten; may be a view
+   * @param pool      Pool running the frames, or null for the calling thread
+   */
+  public void spectrogram(double[] x, DenseMatrix power, ForkJoinPool pool) {
+    int frames = frames(x.length);
+    int bins = plan.bins();
+
+    if (power.rows() != frames || power.cols() != bins) {
+      throw new IllegalArgumentException(String.format("Spectrogram of %s x %s given a %s x %s matrix", frames, bins, power.rows(), power.cols()));
+    }
+
+    ParallelRange.forRange(pool, 0, frames, grain(), (from, to) -> {
+      double[][] buffers = scratch.get();
+      double[] re = buffers[1];
+      double[] im = buffers[2];
+
+      for (int m = from; m < to; m++) {
+        analyze(x, m * hop, buffers[0], re, im);
+
+        for (int k = 0; k < bins; k++) {
+          power.data[power.index(m, k)] = re[k] * re[k] + im[k] * im[k];
+        }
+      }
+    });
+  }
+
+  /**
+   * Signal rebuilt from a complex spectrogram by weighted overlap-add. Each
+   * frame is transformed back, windowed again and added in place, and every
+   * sample is divided by the sum of the squared windows covering it, which
+   * inverts {@link #transform(double[], double[], double[])} exactly
+   * wherever that sum is non-negligible. Other samples, such as the first
+   * one under a Hann window, are 0.
+   * @param re        Real parts, frames x bins() row-major
+   * @param im        Imaginary parts, same layout
+   * @param frames    Number of frames
+   * @return          signalLength(frames) samples
+   */
+  public double[] inverse(double[] re, double[] im, int frames) {
+    checkSpectrogram(frames, re.length, im.length);
+
+    int bins = plan.bins();
+    double[][] buffers = scratch.get();
+    double[] frame = buffers[0];
+    double[] x = new double[signalLength(frames)];
+    double[] norm = new double[x.length];
+
+    for (int m = 0; m < frames; m++) {
+      System.arraycopy(re, m * bins, buffers[1], 0, bins);
+      System.arraycopy(im, m * bins, buffers[2], 0, bins);
+      plan.inverse(buffers[1], buffers[2], frame);
+
+      int start = m * hop;
+
+      for (int i = 0; i < frameLength; i++) {
+        x[start + i] += frame[i] * window[i];
+        norm[start + i] += window[i] * window[i];
+      }
+    }
+
+    for (int i = 0; i < x.length; i++) {
+      x[i] = norm[i] > COVERAGE_THRESHOLD ? x[i] / norm[i] : 0;
+    }
+
+    return x;
+  }
+
+  /**
+   * Start a stream producing the frames of {@link #transform(double[], double[], double[])}
+   * @return    Stream starting at sample 0
+   */
+  public Stream stream() {
+    return new Stream();
+  }
+
+  /**
+   * Window, zero pad and transform x[start..start+frameLength-1]
+   */
+  private void analyze(double[] x, int start, double[] padded, double[] re, double[] im) {
+    for (int i = 0; i < frameLength; i++) {
+      padded[i] = x[start + i] * window[i];
+    }
+
+    Arrays.fill(padded, frameLength, padded.length, 0);
+    plan.forward(padded, re, im);
+  }
+
+  private int grain() {
+    return Math.max(1, PARALLEL_GRAIN / plan.size());
+  }
+
+  private void checkSpectrogram(int frames, int reLength, int imLength) {
+    long length = (long) frames * plan.bins();
+
+    if (reLength < length || imLength < length) {
+      throw new IllegalArgumentException(String.format("Spectrogram of %s frames x %s bins given arrays of %s and %s", frames, plan.bins(), reLength, imLength));
+    }
+  }
+}
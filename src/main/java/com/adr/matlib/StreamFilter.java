@@ -0,0 +1,47 @@
+package com.adr.matlib;
+
+/**
+ * Causal time-domain filter that runs on a stream one sample or one block at
+ * a time.
+ *
+ * The filter keeps its own state, so splitting a stream into blocks of any
+ * size gives the same output as processing it in one call. Processing never
+ * allocates. Implementations are not thread-safe; use one instance per
+ * stream.
+ */
+public interface StreamFilter {
+  /**
+   * Filter the next sample
+   * @param sample    Next input sample
+   * @return          Next output sample
+   */
+  double process(double sample);
+
+  /**
+   * Filter the next count samples. Input and output may be the same array
+   * at the same offset to filter in place.
+   * @param input           Input samples
+   * @param inputOffset     Index of the first input sample
+   * @param output          Array receiving count output samples
+   * @param outputOffset    Index of the first output sample
+   * @param count           Number of samples
+   */
+  default void process(double[] input, int inputOffset, double[] output, int outputOffset, int count) {
+    for (int i = 0; i < count; i++) {
+      output[outputOffset + i] = process(input[inputOffset + i]);
+    }
+  }
+
+  /**
+   * Filter a block in place
+   * @param data    Next input samples, overwritten with the output
+   */
+  default void process(double[] data) {
+    process(data, 0, data, 0, data.length);
+  }
+
+  /**
+   * Return to silence, as if no samples had been processed
+   */
+  void reset();
+}
@@ -0,0 +1,157 @@
+package com.adr.matlib;
+
+import java.util.Arrays;
+
+/**
+ * Welch power spectral density estimate of a stream.
+ *
+ * The stream is cut into segments of a fixed length that overlap by a fixed
+ * number of samples. Each segment is multiplied by a window, transformed
+ * with a real FFT, and its squared magnitudes re^2 + im^2 are added to a
+ * running sum. The estimate is the mean periodogram divided by the window
+ * power sum(w^2), which is less noisy than a single full-length periodogram.
+ *
+ * Only one segment of input is buffered, so a stream of any length can be
+ * fed through {@link #update(double[])} in chunks. Estimators with the same
+ * configuration, for example run by parallel workers on different parts of
+ * a signal, can be combined with {@link #merge(WelchEstimator)}. Instances
+ * are not thread-safe.
+ */
+public final class WelchEstimator {
+  private final int segmentLength;
+  private final int overlap;
+  private final Window window;
+  private final double[] coefficients;
+  private final double windowPower;
+  private final RealFftPlan plan;
+  private final double[] segment;
+  private final double[] windowed;
+  private final double[] re;
+  private final double[] im;
+  private final double[] sum;
+  private int filled;
+  private long segments;
+
+  /**
+   * @param segmentLength   Samples per segment
+   * @param overlap         Samples shared by consecutive segments, less than segmentLength
+   * @param window          Window applied to every segment
+   */
+  public WelchEstimator(int segmentLength, int overlap, Window window) {
+    if (segmentLength < 1 || overlap < 0 || overlap >= segmentLength) {
+      throw new IllegalArgumentException(String.format("Segment length %s with overlap %s", segmentLength, overlap));
+    }
+
+    this.segmentLength = segmentLength;
+    this.overlap = overlap;
+    this.window = window;
+    this.coefficients = window.coefficients(segmentLength);
+    this.windowPower = Correlation.energy(coefficients);
+    this.plan = RealFftPlan.of(segmentLength);
+
+    segment = new double[segmentLength];
+    windowed = new double[segmentLength];
+    re = new double[plan.bins()];
+    im = new double[plan.bins()];
+    sum = new double[plan.bins()];
+  }
+
+  /**
+   * @return    Number of frequency bins, segmentLength / 2 + 1
+   */
+  public int bins() {
+    return plan.bins();
+  }
+
+  /**
+   * @return    Number of segments averaged so far
+   */
+  public long segments() {
+    return segments;
+  }
+
+  /**
+   * Consume the next samples of the stream
+   * @param samples   Any number of samples
+   */
+  public void update(double[] samples) {
+    int consumed = 0;
+
+    while (consumed < samples.length) {
+      int count = Math.min(segmentLength - filled, samples.length - consumed);
+      System.arraycopy(samples, consumed, segment, filled, count);
+      filled += count;
+      consumed += count;
+
+      if (filled == segmentLength) {
+        accumulate();
+        System.arraycopy(segment, segmentLength - overlap, segment, 0, overlap);
+        filled = overlap;
+      }
+    }
+  }
+
+  /**
+   * Add the segments averaged by another estimator. Samples other has
+   * buffered but not yet formed into a segment are not included.
+   * @param other   Another estimator with the same segment length, overlap and window
+   */
+  public void merge(WelchEstimator other) {
+    if (other == this) {
+      throw new IllegalArgumentException("An estimator cannot be merged into itself");
+    }
+
+    if (other.segmentLength != segmentLength || other.overlap != overlap || other.window != window) {
+      throw new IllegalArgumentException("Estimators have different configurations");
+    }
+
+    for (int k = 0; k < sum.length; k++) {
+      sum[k] += other.sum[k];
+    }
+
+    segments += other.segments;
+  }
+
+  /**
+   * Power spectral density at bins 0 to segmentLength / 2
+   * @return    Mean windowed periodogram, all zero before the first segment
+   */
+  public double[] estimate() {
+    double[] psd = new double[sum.length];
+
+    if (segments == 0) {
+      return psd;
+    }
+
+    double scale = 1.0 / (segments * windowPower);
+
+    for (int k = 0; k < psd.length; k++) {
+      psd[k] = sum[k] * scale;
+    }
+
+    return psd;
+  }
+
+  /**
+   * Forget all segments and buffered samples
+   */
+  public void reset() {
+    Arrays.fill(sum, 0);
+    filled = 0;
+    segments = 0;
+  }
+
+  private void accumulate() {
+    for (int i = 0; i < segmentLength; i++) {
+      windowed[i] = segment[i] * coefficients[i];
+    }
+
+    plan.forward(windowed, re, im);
+
+    for (int k = 0; k < sum.length; k++) {
+      sum[k] += re[k] * re[k] + im[k] * im[k];
+    }
+
+    segments++;
+  }
+}
@@ -0,0 +1,63 @@
+package com.adr.matlib;
+
+/**
+ * Tapering windows for spectral estimation and filter design.
+ *
+ * {@link #coefficients(int)} are periodic (DFT-even): a window of length n
+ * is the first n points of the symmetric window of length n + 1, so
+ * overlapping segments tile the signal evenly. {@link #symmetric(int)} gives
+ * the symmetric form, which keeps FIR filters linear phase.
+ */
+public enum Window {
+  RECTANGULAR,
+  HANN,
+  HAMMING,
+  BLACKMAN;
+
+  /**
+   * Periodic window coefficients
+   * @param n   Window length
+   * @return    n coefficients
+   */
+  public double[] coefficients(int n) {
+    return sample(n, n);
+  }
+
+  /**
+   * Symmetric window coefficients, w[i] = w[n - 1 - i]
+   * @param n   Window length
+   * @return    n coefficients
+   */
+  public double[] symmetric(int n) {
+    if (n == 1) {
+      return new double[]{1};
+    }
+
+    return sample(n, n - 1);
+  }
+
+  private double[] sample(int n, int period) {
+    double[] w = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      double x = 2 * Math.PI * i / period;
+
+      switch (this) {
+        case HANN:
+          w[i] = 0.5 - 0.5 * Math.cos(x);
+          break;
+        case HAMMING:
+          w[i] = 0.54 - 0.46 * Math.cos(x);
+          break;
+        case BLACKMAN:
+          w[i] = 0.42 - 0.5 * Math.cos(x) + 0.08 * Math.cos(2 * x);
+          break;
+        default:
+          w[i] = 1;
+          break;
+      }
+    }
+
+    return w;
+  }
+}
@@ -0,0 +1,111 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class CholeskyDecompositionTest {
+  @Test
+  public void factorAndSolve() throws Exception {
+    double[][] matrixA = {{4, 12, -16}, {12, 37, -43}, {-16, -43, 98}};
+    CholeskyDecomposition cholesky = new CholeskyDecomposition(matrixA);
+
+    assertTrue(cholesky.isPositiveDefinite());
+    check2dArray(new double[][]{{2, 0, 0}, {6, 1, 0}, {-8, 5, 3}}, cholesky.lower(), 0.0001);
+    assertEquals(36, cholesky.determinant(), 0.0001);
+    assertEquals(Math.log(36), cholesky.logDeterminant(), 0.0001);
+
+    double[] b = {1, 2, 3};
+    double[] x = cholesky.solve(b);
+    assertArrayEquals(new LUDecomposition(matrixA).solve(b), x, 0.0001);
+  }
+
+  @Test
+  public void inverse() throws Exception {
+    double[][] matrixA = {{2, -1, 0}, {-1, 2, -1}, {0, -1, 2}};
+    double[][] expected = {{3.0/4, 1.0/2, 1.0/4}, {1.0/2, 1.0, 1.0/2}, {1.0/4, 1.0/2, 3.0/4}};
+
+    check2dArray(expected, new CholeskyDecomposition(matrixA).inverse(), 0.0001);
+  }
+
+  @Test
+  public void blockedMatchesUnblocked() throws Exception {
+    int n = 150;
+    DenseMatrix matrix = randomSpd(n, 7);
+
+    CholeskyDecomposition blocked = new CholeskyDecomposition(matrix, true);
+    CholeskyDecomposition unblocked = new CholeskyDecomposition(matrix, false);
+
+    assertTrue(blocked.isPositiveDefinite());
+    check2dArray(unblocked.lower(), blocked.lower(), 1e-9);
+
+    DenseMatrix b = new DenseMatrix(n, 3);
+    b.set(0, 0, 1);
+    b.set(n - 1, 1, 1);
+    b.set(n / 2, 2, -2);
+
+    DenseMatrix x = blocked.solve(b);
+    check2dArray(b.toArray(), MatLib.multiplyMatrix(matrix, x).toArray(), 1e-9);
+  }
+
+  @Test
+  public void notPositiveDefinite() throws Exception {
+    double[][] matrixA = {{1, 2}, {2, 1}};
+    CholeskyDecomposition cholesky = new CholeskyDecomposition(matrixA);
+
+    assertFalse(cholesky.isPositiveDefinite());
+
+    try {
+      cholesky.solve(new double[]{1, 1});
+      fail();
+    } catch (ArithmeticException e) {
+      // Expected
+    }
+
+    // Not positive definite is not the same as singular, so there is no 0 to return
+    try {
+      cholesky.determinant();
+      fail();
+    } catch (ArithmeticException e) {
+      // Expected
+    }
+
+    Factorization factorization = MatLib.factorMatrix(matrixA);
+    assertTrue(factorization instanceof LUDecomposition);
+    assertEquals(-3, factorization.determinant(), 0.0001);
+  }
+
+  @Test
+  public void factorMatrix() throws Exception {
+    assertTrue(MatLib.factorMatrix(new double[][]{{2, -1}, {-1, 2}}) instanceof CholeskyDecomposition);
+    assertTrue(MatLib.factorMatrix(new double[][]{{2, -1}, {1, 2}}) instanceof LUDecomposition);
+  }
+
+  private DenseMatrix randomSpd(int n, long seed) throws Exception {
+    Random random = new Random(seed);
+    DenseMatrix m = new DenseMatrix(n, n);
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        m.set(i, j, random.nextDouble() - 0.5);
+      }
+    }
+
+    DenseMatrix spd = MatLib.multiplyMatrix(m, m.transpose());
+
+    for (int i = 0; i < n; i++) {
+      spd.set(i, i, spd.get(i, i) + n);
+    }
+
+    return spd;
+  }
+
+  private void check2dArray(double[][] expected, double[][] actual, double precision) {
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j], actual[i][j], precision);
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class CorrelationTemplateTest {
+  @Test
+  public void matchesMatLib() throws Exception {
+    double[] pulse = FftTest.randomArray(300, 61);
+    CorrelationTemplate template = new CorrelationTemplate(pulse);
+
+    // Direct, FFT, repeated FFT length and a signal shorter than the template
+    for (int n : new int[]{50, 1023, 20000, 20000, 200}) {
+      double[] x = FftTest.randomArray(n, n + 62);
+
+      assertArrayEquals(MatLib.crossCorrelation(pulse, x), template.crossCorrelation(x), 1e-12);
+      assertArrayEquals(MatLib.normalizedCrossCorrelatiton(pulse, x), template.normalizedCrossCorrelation(x), 1e-12);
+    }
+  }
+
+  @Test
+  public void parallelBatch() throws Exception {
+    double[] pulse = FftTest.randomArray(128, 63);
+    CorrelationTemplate template = new CorrelationTemplate(pulse);
+    double[][] signals = new double[24][];
+
+    for (int i = 0; i < signals.length; i++) {
+      signals[i] = FftTest.randomArray(i % 3 == 0 ? 5000 : 4096, 64 + i);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      double[][] parallel = template.normalizedCrossCorrelation(signals, pool);
+      double[][] serial = template.normalizedCrossCorrelation(signals, null);
+
+      for (int i = 0; i < signals.length; i++) {
+        assertArrayEquals(serial[i], parallel[i], 0);
+        assertArrayEquals(MatLib.normalizedCrossCorrelatiton(pulse, signals[i]), parallel[i], 1e-12);
+      }
+
+      double[][] correlations = template.crossCorrelation(signals, pool);
+      assertArrayEquals(MatLib.crossCorrelation(pulse, signals[5]), correlations[5], 1e-12);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
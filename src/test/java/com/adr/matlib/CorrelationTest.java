@@ -0,0 +1,74 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CorrelationTest {
+  @Test
+  public void fftMatchesDirect() throws Exception {
+    int[][] sizes = {{1, 1}, {7, 3}, {100, 100}, {1023, 51}, {1000, 999}, {4096, 300}};
+
+    for (int[] size : sizes) {
+      double[] x = FftTest.randomArray(size[0], size[0]);
+      double[] y = FftTest.randomArray(size[1], size[1] + 1);
+
+      double[] direct = Correlation.direct(y, x, size[1]);
+      double[] fft = Correlation.viaFft(y, x, size[1]);
+
+      assertArrayEquals(direct, fft, 1e-9);
+    }
+  }
+
+  @Test
+  public void crossCorrelation() throws Exception {
+    double[] x = {1, 2, 3, 4};
+    double[] y = {1, -1};
+
+    assertArrayEquals(new double[]{-1, -1, -1, 4}, MatLib.crossCorrelation(y, x), 1e-12);
+    assertArrayEquals(new double[]{30, 20, 11, 4}, MatLib.autoCorrelation(x), 1e-12);
+
+    // Template longer than the signal is truncated
+    assertArrayEquals(new double[]{1, 2}, MatLib.crossCorrelation(new double[]{1, 0, 5}, new double[]{1, 2}), 1e-12);
+  }
+
+  @Test
+  public void normalizedFindsTemplate() throws Exception {
+    int n = 20000;
+    double[] pulse = FftTest.randomArray(256, 31);
+    double[] signal = FftTest.randomArray(n, 32);
+
+    for (int i = 0; i < n; i++) {
+      signal[i] *= 0.01;
+    }
+
+    for (int j = 0; j < pulse.length; j++) {
+      signal[12345 + j] += pulse[j];
+    }
+
+    assertFalse(Correlation.useDirect(n, pulse.length));
+
+    double[] correlation = MatLib.normalizedCrossCorrelatiton(pulse, signal);
+    int best = 0;
+
+    for (int i = 1; i < n; i++) {
+      if (correlation[i] > correlation[best]) {
+        best = i;
+      }
+    }
+
+    assertEquals(12345, best);
+
+    double energyX = MatLib.autoCorrelation(signal)[0];
+    double energyY = MatLib.autoCorrelation(pulse)[0];
+    double expected = MatLib.crossCorrelation(pulse, signal)[best] / Math.sqrt(energyX * energyY);
+    assertEquals(expected, correlation[best], 1e-9);
+  }
+
+  @Test
+  public void fftSize() throws Exception {
+    assertEquals(2, Correlation.fftSize(1));
+    assertEquals(1152, Correlation.fftSize(1073));
+    assertEquals(1024, Correlation.fftSize(1023));
+  }
+}
@@ -0,0 +1,188 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class DenseMatrixTest {
+  @Test
+  public void ofAndToArray() throws Exception {
+    double[][] matrix = {{1, 2, 3}, {4, 5, 6}};
+    DenseMatrix dense = DenseMatrix.of(matrix);
+
+    assertEquals(2, dense.rows());
+    assertEquals(3, dense.cols());
+    assertEquals(6, dense.get(1, 2), 0);
+    assertArrayEquals(matrix, dense.toArray());
+  }
+
+  @Test
+  public void viewsShareStorage() throws Exception {
+    DenseMatrix dense = DenseMatrix.of(new double[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+
+    DenseMatrix sub = dense.subMatrix(1, 1, 2, 2);
+    assertArrayEquals(new double[][]{{5, 6}, {8, 9}}, sub.toArray());
+
+    DenseMatrix transpose = sub.transpose();
+    assertArrayEquals(new double[][]{{5, 8}, {6, 9}}, transpose.toArray());
+
+    transpose.set(0, 1, -1);
+    assertEquals(-1, dense.get(2, 1), 0);
+
+    DenseMatrix copy = sub.copy();
+    copy.set(0, 0, 100);
+    assertEquals(5, dense.get(1, 1), 0);
+  }
+
+  @Test
+  public void partitionMatrix() throws Exception {
+    DenseMatrix dense = DenseMatrix.of(new double[][]{{1, 0, 7}, {0, 1, 8}});
+    DenseMatrix[] parts = MatLib.partitionMatrix(dense, 2);
+
+    assertArrayEquals(MatLib.generateIdentityMatrix(2), parts[0].toArray());
+    assertArrayEquals(new double[][]{{7}, {8}}, parts[1].toArray());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void subMatrixOutOfBounds() throws Exception {
+    new DenseMatrix(2, 2).subMatrix(1, 1, 2, 1);
+  }
+
+  @Test
+  public void multiplyMatrix() throws Exception {
+    DenseMatrix matrixA = DenseMatrix.of(new double[][]{{1, 2, 3}, {4, 5, 6}});
+    DenseMatrix matrixB = DenseMatrix.of(new double[][]{{7, 8}, {9, 10}, {11, 12}});
+
+    assertArrayEquals(new double[][]{{58, 64}, {139, 154}}, MatLib.multiplyMatrix(matrixA, matrixB).toArray());
+    assertArrayEquals(new double[][]{{58, 139}, {64, 154}},
+        MatLib.multiplyMatrix(matrixB.transpose(), matrixA.transpose()).toArray());
+
+    try {
+      MatLib.multiplyMatrix(matrixA, matrixA);
+      fail();
+    } catch (NonConformableMatrixException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void multiplyBlocked() throws Exception {
+    DenseMatrix matrixA = randomMatrix(70, 131, 1);
+    DenseMatrix matrixB = randomMatrix(131, 45, 2);
+    DenseMatrix product = MatLib.multiplyMatrix(matrixA, matrixB.transpose().copy().transpose());
+
+    for (int i = 0; i < matrixA.rows(); i++) {
+      for (int j = 0; j < matrixB.cols(); j++) {
+        double sum = 0;
+
+        for (int k = 0; k < matrixA.cols(); k++) {
+          sum += matrixA.get(i, k) * matrixB.get(k, j);
+        }
+
+        assertEquals(sum, product.get(i, j), 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void multiplyIntoStridedView() throws Exception {
+    // Partial edge tiles in both directions, written through a transposed view
+    DenseMatrix matrixA = randomMatrix(70, 131, 5);
+    DenseMatrix matrixB = randomMatrix(131, 45, 6);
+    DenseMatrix expected = MatLib.multiplyMatrix(matrixA, matrixB);
+    DenseMatrix storage = new DenseMatrix(45, 70);
+
+    MatLib.multiplyAccumulate(2, matrixA, matrixB, storage.transpose());
+
+    for (int i = 0; i < 70; i++) {
+      for (int j = 0; j < 45; j++) {
+        assertEquals(2 * expected.get(i, j), storage.get(j, i), 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void multiplyParallel() throws Exception {
+    DenseMatrix matrixA = randomMatrix(301, 187, 3);
+    DenseMatrix matrixB = randomMatrix(187, 259, 4);
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      double[][] serial = MatLib.multiplyMatrix(matrixA, matrixB).toArray();
+      double[][] parallel = MatLib.multiplyMatrix(matrixA, matrixB, pool, 0).toArray();
+
+      assertArrayEquals(serial, parallel);
+      assertArrayEquals(serial, MatLib.multiplyMatrix(matrixA.toArray(), matrixB.toArray(), pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void multiplyAccumulate() throws Exception {
+    DenseMatrix matrixA = DenseMatrix.of(new double[][]{{1, 2}, {3, 4}});
+    DenseMatrix matrixC = DenseMatrix.identity(2);
+
+    MatLib.multiplyAccumulate(2, matrixA, DenseMatrix.identity(2), matrixC);
+    assertArrayEquals(new double[][]{{3, 4}, {6, 9}}, matrixC.toArray());
+
+    try {
+      MatLib.multiplyAccumulate(1, matrixA, matrixA, new DenseMatrix(2, 3));
+      fail();
+    } catch (NonConformableMatrixException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void gaussianElimination() throws Exception {
+    DenseMatrix matrixA = DenseMatrix.of(new double[][]{{1, 0, 2}, {2, -1, 3}, {4, 1, 8}});
+    DenseMatrix matrixB = DenseMatrix.of(new double[][]{{1}, {-1}, {2}});
+
+    double[] actual = MatLib.backSubstitution(MatLib.gaussianElimination(matrixA, matrixB));
+
+    assertArrayEquals(new double[]{-9, -2, 5}, actual, 0.001);
+  }
+
+  @Test
+  public void invertMatrix() throws Exception {
+    DenseMatrix matrixA = DenseMatrix.of(new double[][]{{2, -1, 0}, {-1, 2, -1}, {0, -1, 2}});
+    DenseMatrix[] partitions = MatLib.invertMatrix(matrixA);
+
+    double[][] expected = {{3.0/4, 1.0/2, 1.0/4}, {1.0/2, 1.0, 1.0/2}, {1.0/4, 1.0/2, 3.0/4}};
+
+    check2dArray(MatLib.generateIdentityMatrix(3), partitions[0].toArray(), 0.0001);
+    check2dArray(expected, partitions[1].toArray(), 0.0001);
+  }
+
+  @Test
+  public void calculateDeterminant() throws Exception {
+    DenseMatrix matrix = DenseMatrix.of(new double[][]{{1, 4, 0}, {0, 2, 6}, {-1, 0, 1}});
+
+    assertEquals(-22, MatLib.calculateDeterminant(matrix), 0.0001);
+    assertEquals(-22, MatLib.calculateDeterminant(matrix.transpose()), 0.0001);
+  }
+
+  private DenseMatrix randomMatrix(int rows, int cols, long seed) {
+    java.util.Random random = new java.util.Random(seed);
+    DenseMatrix matrix = new DenseMatrix(rows, cols);
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        matrix.set(i, j, random.nextDouble() - 0.5);
+      }
+    }
+
+    return matrix;
+  }
+
+  private void check2dArray(double[][] expected, double[][] actual, double precision) {
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j], actual[i][j], precision);
+      }
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FactorizationCacheTest {
+  @Test
+  public void hitsAndMisses() throws Exception {
+    FactorizationCache cache = new FactorizationCache(FactorizationCache.KeyMode.IDENTITY, 4, 1 << 20);
+    double[][] matrixA = {{2, 1}, {1, 3}};
+
+    Factorization first = cache.get(matrixA);
+    Factorization second = cache.get(matrixA);
+
+    assertSame(first, second);
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+    assertEquals(1, cache.size());
+    assertEquals(5, second.determinant(), 0.0001);
+  }
+
+  @Test
+  public void identityAndContentKeys() throws Exception {
+    double[][] matrixA = {{4, 1}, {2, 3}};
+    double[][] copyA = {{4, 1}, {2, 3}};
+
+    FactorizationCache identity = new FactorizationCache(FactorizationCache.KeyMode.IDENTITY, 4, 1 << 20);
+    identity.get(matrixA);
+    identity.get(copyA);
+    assertEquals(0, identity.hits());
+    assertEquals(2, identity.size());
+
+    FactorizationCache content = new FactorizationCache(FactorizationCache.KeyMode.CONTENT, 4, 1 << 20);
+    content.get(matrixA);
+    content.get(copyA);
+    content.get(DenseMatrix.of(copyA));
+    assertEquals(2, content.hits());
+    assertEquals(1, content.size());
+
+    // Content keys see modifications, identity keys need invalidate
+    matrixA[0][0] = 1;
+    assertEquals(1, content.get(matrixA).determinant(), 0.0001);
+    assertEquals(10, identity.get(matrixA).determinant(), 0.0001);
+
+    identity.invalidate(matrixA);
+    assertEquals(1, identity.get(matrixA).determinant(), 0.0001);
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() throws Exception {
+    FactorizationCache cache = new FactorizationCache(FactorizationCache.KeyMode.IDENTITY, 2, 1 << 20);
+    double[][] matrixA = {{2, 1}, {1, 3}};
+    double[][] matrixB = {{1, 2}, {3, 4}};
+    double[][] matrixC = {{5, 0}, {0, 5}};
+
+    cache.get(matrixA);
+    cache.get(matrixB);
+    cache.get(matrixA);
+    cache.get(matrixC);
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.evictions());
+
+    cache.get(matrixA);
+    assertEquals(2, cache.hits());
+
+    cache.get(matrixB);
+    assertEquals(2, cache.hits());
+  }
+
+  @Test
+  public void evictByBytes() throws Exception {
+    // Room for a single 2 x 2 LU factorization (8 * 4 + 4 * 2 bytes)
+    FactorizationCache cache = new FactorizationCache(FactorizationCache.KeyMode.IDENTITY, 10, 50);
+    double[][] matrixA = {{1, 2}, {3, 4}};
+    double[][] matrixB = {{0, 1}, {1, 0}};
+
+    cache.get(matrixA);
+    assertEquals(40, cache.bytes());
+
+    cache.get(matrixB);
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.evictions());
+    assertEquals(40, cache.bytes());
+
+    // Larger than the whole cache, returned but not stored
+    cache.get(new double[][]{{1, 0, 0}, {0, 2, 0}, {0, 0, 3}});
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void matLibUsesCache() throws Exception {
+    FactorizationCache cache = new FactorizationCache(FactorizationCache.KeyMode.CONTENT, 8, 1 << 20);
+    double[][] matrixA = {{2, 1, 1}, {4, -6, 0}, {-2, 7, 2}};
+    double[][] matrixB = {{5}, {-2}, {9}};
+
+    double determinant = MatLib.calculateDeterminant(matrixA);
+    double[][] inverse = MatLib.invertMatrix(matrixA)[1];
+    double[] solution = MatLib.solveLinearSystem(matrixA, matrixB);
+    double[][][] reduced = MatLib.gaussianElimination(matrixA, matrixB);
+
+    MatLib.setFactorizationCache(cache);
+
+    try {
+      assertEquals(determinant, MatLib.calculateDeterminant(matrixA), 0.0001);
+      check2dArray(inverse, MatLib.invertMatrix(matrixA)[1], 0.0001);
+      assertArrayEquals(solution, MatLib.solveLinearSystem(matrixA, matrixB), 0.0001);
+
+      // The reduced system itself is the same with or without a cache
+      double[][][] cached = MatLib.gaussianElimination(matrixA, matrixB);
+      check2dArray(reduced[0], cached[0], 0);
+      check2dArray(reduced[1], cached[1], 0);
+
+      DenseMatrix dense = DenseMatrix.of(matrixA);
+      assertEquals(determinant, MatLib.calculateDeterminant(dense), 0.0001);
+      check2dArray(inverse, MatLib.invertMatrix(dense)[1].toArray(), 0.0001);
+
+      assertEquals(1, cache.misses());
+      assertEquals(4, cache.hits());
+    } finally {
+      MatLib.setFactorizationCache(null);
+    }
+  }
+
+  private void check2dArray(double[][] expected, double[][] actual, double precision) {
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j], actual[i][j], precision);
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FftPlanTest {
+  @Test
+  public void cachedPlansAreShared() throws Exception {
+    FftPlan forward = FftPlan.of(256, 1);
+
+    assertSame(forward, FftPlan.of(256, 1));
+    assertSame(FftPlan.of(300, -1), FftPlan.of(300, -1));
+    assertEquals(300, FftPlan.of(300, -1).size());
+    assertNotSame(forward, FftPlan.of(256, -1));
+    assertEquals(256, forward.size());
+    assertEquals(-1, FftPlan.of(256, -1).direction());
+  }
+
+  @Test
+  public void cacheIsBounded() throws Exception {
+    for (int i = 0; i < 2 * FftPlan.CACHE_SIZE; i++) {
+      FftPlan.of(1 << (i % 20), i < FftPlan.CACHE_SIZE ? 1 : -1);
+      FftPlan.of(2, i);
+    }
+
+    assertTrue(FftPlan.cachedPlans() <= FftPlan.CACHE_SIZE);
+  }
+
+  @Test
+  public void matchesDft() throws Exception {
+    int n = 128;
+    double[] re = FftTest.randomArray(n, 11);
+    double[] im = FftTest.randomArray(n, 12);
+    double[][] expected = FftTest.dft(re, im, -1);
+
+    new FftPlan(n, -1).transform(re, im);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(expected[0][i] / n, re[i], 1e-12);
+      assertEquals(expected[1][i] / n, im[i], 1e-12);
+    }
+  }
+
+  @Test
+  public void tablesDoNotDrift() throws Exception {
+    // A single non-zero bin transforms to a pure tone of unit magnitude
+    int n = 1 << 16;
+    double[] re = new double[n];
+    double[] im = new double[n];
+    re[1] = n;
+
+    FftPlan.of(n, -1).transform(re, im);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(1, Math.hypot(re[i], im[i]), 1e-12);
+    }
+  }
+
+  @Test
+  public void interleaved() throws Exception {
+    double[] data = {1, 0, 2, 0, 3, 0, 4, 0};
+
+    new FftPlan(4, 1).transform(data);
+
+    assertArrayEquals(new double[]{10, 0, -2, 2, -2, 0, -2, -2}, data, 1e-12);
+  }
+
+  @Test
+  public void powersOfTwo() throws Exception {
+    // Codelets for 1 to 8, then radix-4 passes with and without a final radix-2 pass
+    for (int n = 1; n <= 2048; n *= 2) {
+      for (int d : new int[]{1, -1}) {
+        double[] re = FftTest.randomArray(n, 3 * n);
+        double[] im = FftTest.randomArray(n, 5 * n);
+        double[][] expected = FftTest.dft(re, im, d);
+        double scale = d < 0 ? n : 1;
+
+        // Every other element of an interleaved array, so the stride is 4
+        double[] data = new double[4 * n];
+
+        for (int i = 0; i < n; i++) {
+          data[4 * i] = re[i];
+          data[4 * i + 1] = im[i];
+        }
+
+        FftPlan.of(n, d).transform(re, im);
+        FftPlan.of(n, d).transform(data, 0, data, 1, 4);
+
+        for (int i = 0; i < n; i++) {
+          assertEquals(expected[0][i] / scale, re[i], 1e-9);
+          assertEquals(expected[1][i] / scale, im[i], 1e-9);
+          assertEquals(re[i], data[4 * i], 0);
+          assertEquals(im[i], data[4 * i + 1], 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void mixedRadixAndBluestein() throws Exception {
+    // 1023 = 3 * 11 * 31 goes through Bluestein, the others are 2, 3, 5 and 7 smooth
+    for (int n : new int[]{6, 12, 45, 63, 98, 210, 1000, 1023, 2 * 509, 4 * 7 * 9 * 5}) {
+      for (int d : new int[]{1, -1}) {
+        double[] re = FftTest.randomArray(n, n);
+        double[] im = FftTest.randomArray(n, n + 1);
+        double[][] expected = FftTest.dft(re, im, d);
+        double scale = d < 0 ? n : 1;
+
+        FftPlan.of(n, d).transform(re, im);
+
+        for (int i = 0; i < n; i++) {
+          assertEquals(expected[0][i] / scale, re[i], 1e-9);
+          assertEquals(expected[1][i] / scale, im[i], 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void stridedMixedRadix() throws Exception {
+    int n = 15;
+    double[] re = FftTest.randomArray(n, 19);
+    double[] im = FftTest.randomArray(n, 20);
+    double[] data = new double[2 * n];
+
+    for (int i = 0; i < n; i++) {
+      data[2 * i] = re[i];
+      data[2 * i + 1] = im[i];
+    }
+
+    FftPlan.of(n, 1).transform(re, im);
+    FftPlan.of(n, 1).transform(data);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(re[i], data[2 * i], 0);
+      assertEquals(im[i], data[2 * i + 1], 0);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongLength() throws Exception {
+    new FftPlan(8, 1).transform(new double[4], new double[4]);
+  }
+}
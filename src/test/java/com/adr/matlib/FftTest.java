@@ -0,0 +1,312 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class FftTest {
+  @Test
+  public void splitMatchesDft() throws Exception {
+    int n = 64;
+    double[] re = randomArray(n, 1);
+    double[] im = randomArray(n, 2);
+    double[][] expected = dft(re, im, 1);
+
+    Fft.transform(re, im, 1);
+
+    assertArrayEquals(expected[0], re, 1e-9);
+    assertArrayEquals(expected[1], im, 1e-9);
+  }
+
+  @Test
+  public void interleavedMatchesSplit() throws Exception {
+    int n = 32;
+    double[] re = randomArray(n, 3);
+    double[] im = randomArray(n, 4);
+    double[] data = new double[2 * n];
+
+    for (int i = 0; i < n; i++) {
+      data[2 * i] = re[i];
+      data[2 * i + 1] = im[i];
+    }
+
+    Fft.transform(re, im, 1);
+    Fft.transform(data, 1);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(re[i], data[2 * i], 0);
+      assertEquals(im[i], data[2 * i + 1], 0);
+    }
+  }
+
+  @Test
+  public void stridedColumn() throws Exception {
+    int n = 8;
+    double[] re = randomArray(n, 5);
+    double[] im = randomArray(n, 6);
+
+    // Column 1 of an n x 3 row-major matrix
+    double[] matrixRe = new double[3 * n];
+    double[] matrixIm = new double[3 * n];
+
+    for (int i = 0; i < n; i++) {
+      matrixRe[3 * i + 1] = re[i];
+      matrixIm[3 * i + 1] = im[i];
+    }
+
+    Fft.transform(re, im, 1);
+    Fft.transform(matrixRe, 1, matrixIm, 1, 3, n, 1);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(re[i], matrixRe[3 * i + 1], 0);
+      assertEquals(im[i], matrixIm[3 * i + 1], 0);
+      assertEquals(0, matrixRe[3 * i], 0);
+      assertEquals(0, matrixRe[3 * i + 2], 0);
+    }
+  }
+
+  @Test
+  public void inverseRoundTrip() throws Exception {
+    int n = 1024;
+    double[] re = randomArray(n, 7);
+    double[] im = randomArray(n, 8);
+    double[] originalRe = re.clone();
+    double[] originalIm = im.clone();
+
+    Fft.transform(re, im, 1);
+    Fft.transform(re, im, -1);
+
+    assertArrayEquals(originalRe, re, 1e-9);
+    assertArrayEquals(originalIm, im, 1e-9);
+  }
+
+  @Test
+  public void complexAdapter() throws Exception {
+    int n = 16;
+    double[] re = randomArray(n, 9);
+    double[] im = randomArray(n, 10);
+    Complex[] z = new Complex[n];
+
+    for (int i = 0; i < n; i++) {
+      z[i] = new Complex(re[i], im[i]);
+    }
+
+    Complex[] actual = MatLib.fastFourierTransform(z, -1);
+    Fft.transform(re, im, -1);
+
+    for (int i = 0; i < n; i++) {
+      assertEquals(re[i], actual[i].re(), 0);
+      assertEquals(im[i], actual[i].im(), 0);
+    }
+  }
+
+  @Test
+  public void anyLength() throws Exception {
+    for (int n = 1; n <= 40; n++) {
+      double[] re = randomArray(n, 13 * n);
+      double[] im = randomArray(n, 17 * n);
+      double[][] expected = dft(re, im, 1);
+
+      Fft.transform(re, im, 1);
+
+      assertArrayEquals(expected[0], re, 1e-9);
+      assertArrayEquals(expected[1], im, 1e-9);
+    }
+  }
+
+  @Test
+  public void parallelMatchesSerial() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      // Square and non-square power of two splits, a mixed radix split and a prime
+      for (int n : new int[]{1 << 12, 1 << 13, 3 * 5 * 7 * 64, 4099}) {
+        for (int d : new int[]{1, -1}) {
+          double[] re = randomArray(n, n);
+          double[] im = randomArray(n, n + 1);
+          double[] parallelRe = re.clone();
+          double[] parallelIm = im.clone();
+
+          Fft.transform(re, im, d);
+          Fft.transform(parallelRe, parallelIm, d, pool, 0);
+
+          assertArrayEquals(re, parallelRe, 1e-9);
+          assertArrayEquals(im, parallelIm, 1e-9);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void batch() throws Exception {
+    int length = 12;
+    int count = 5;
+    double[] re = randomArray(length * count, 21);
+    double[] im = randomArray(length * count, 22);
+    double[] expectedRe = re.clone();
+    double[] expectedIm = im.clone();
+
+    for (int i = 0; i < count; i++) {
+      Fft.transform(expectedRe, i * length, expectedIm, i * length, 1, length, 1);
+    }
+
+    Fft.transformBatch(re, im, length, 1);
+
+    assertArrayEquals(expectedRe, re, 0);
+    assertArrayEquals(expectedIm, im, 0);
+  }
+
+  @Test
+  public void transform2d() throws Exception {
+    int rows = 6;
+    int cols = 40;
+    double[] re = randomArray(rows * cols, 23);
+    double[] im = randomArray(rows * cols, 24);
+    double[][] expected = dft2d(re, im, rows, cols);
+
+    Fft.transform2d(re, im, rows, cols, 1);
+
+    assertArrayEquals(expected[0], re, 1e-9);
+    assertArrayEquals(expected[1], im, 1e-9);
+
+    Fft.transform2d(re, im, rows, cols, -1);
+    Fft.transform2d(re, im, rows, cols, 1);
+
+    assertArrayEquals(expected[0], re, 1e-9);
+    assertArrayEquals(expected[1], im, 1e-9);
+  }
+
+  @Test
+  public void transform2dJagged() throws Exception {
+    int rows = 17;
+    int cols = 8;
+    double[] re = randomArray(rows * cols, 25);
+    double[] im = randomArray(rows * cols, 26);
+    double[][] jaggedRe = new double[rows][cols];
+    double[][] jaggedIm = new double[rows][cols];
+
+    for (int i = 0; i < rows; i++) {
+      System.arraycopy(re, i * cols, jaggedRe[i], 0, cols);
+      System.arraycopy(im, i * cols, jaggedIm[i], 0, cols);
+    }
+
+    Fft.transform2d(re, im, rows, cols, -1);
+    Fft.transform2d(jaggedRe, jaggedIm, -1);
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        assertEquals(re[i * cols + j], jaggedRe[i][j], 0);
+        assertEquals(im[i * cols + j], jaggedIm[i][j], 0);
+      }
+    }
+  }
+
+  @Test
+  public void transformNd() throws Exception {
+    int[] shape = {3, 4, 5};
+    double[] re = randomArray(60, 27);
+    double[] im = randomArray(60, 28);
+    double[] expectedRe = re.clone();
+    double[] expectedIm = im.clone();
+
+    // One strided 1D transform per line along each axis
+    for (int a = 0; a < 3; a++) {
+      for (int b = 0; b < 4; b++) {
+        Fft.transform(expectedRe, a * 20 + b * 5, expectedIm, a * 20 + b * 5, 1, 5, 1);
+      }
+
+      for (int c = 0; c < 5; c++) {
+        Fft.transform(expectedRe, a * 20 + c, expectedIm, a * 20 + c, 5, 4, 1);
+      }
+    }
+
+    for (int b = 0; b < 4; b++) {
+      for (int c = 0; c < 5; c++) {
+        Fft.transform(expectedRe, b * 5 + c, expectedIm, b * 5 + c, 20, 3, 1);
+      }
+    }
+
+    Fft.transformNd(re, im, shape, 1);
+
+    assertArrayEquals(expectedRe, re, 1e-12);
+    assertArrayEquals(expectedIm, im, 1e-12);
+  }
+
+  @Test
+  public void parallelMultiDimensional() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      int rows = 256;
+      int cols = 300;
+      double[] re = randomArray(rows * cols, 29);
+      double[] im = randomArray(rows * cols, 30);
+      double[] parallelRe = re.clone();
+      double[] parallelIm = im.clone();
+
+      Fft.transform2d(re, im, rows, cols, 1);
+      Fft.transform2d(parallelRe, parallelIm, rows, cols, 1, pool);
+
+      assertArrayEquals(re, parallelRe, 0);
+      assertArrayEquals(im, parallelIm, 0);
+
+      Fft.transformBatch(re, im, cols, -1);
+      Fft.transformBatch(parallelRe, parallelIm, cols, -1, pool);
+
+      assertArrayEquals(re, parallelRe, 0);
+      assertArrayEquals(im, parallelIm, 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static double[][] dft2d(double[] re, double[] im, int rows, int cols) {
+    double[][] result = new double[2][rows * cols];
+
+    for (int k = 0; k < rows; k++) {
+      for (int l = 0; l < cols; l++) {
+        for (int i = 0; i < rows; i++) {
+          for (int j = 0; j < cols; j++) {
+            double angle = -2 * Math.PI * ((double) i * k / rows + (double) j * l / cols);
+            double xr = re[i * cols + j];
+            double xi = im[i * cols + j];
+            result[0][k * cols + l] += xr * Math.cos(angle) - xi * Math.sin(angle);
+            result[1][k * cols + l] += xr * Math.sin(angle) + xi * Math.cos(angle);
+          }
+        }
+      }
+    }
+
+    return result;
+  }
+
+  static double[][] dft(double[] re, double[] im, int d) {
+    int n = re.length;
+    double[][] result = new double[2][n];
+
+    for (int k = 0; k < n; k++) {
+      for (int j = 0; j < n; j++) {
+        double angle = -2 * Math.PI * d * ((long) j * k % n) / n;
+        result[0][k] += re[j] * Math.cos(angle) - im[j] * Math.sin(angle);
+        result[1][k] += re[j] * Math.sin(angle) + im[j] * Math.cos(angle);
+      }
+    }
+
+    return result;
+  }
+
+  static double[] randomArray(int n, long seed) {
+    Random random = new Random(seed);
+    double[] array = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      array[i] = random.nextDouble() - 0.5;
+    }
+
+    return array;
+  }
+}
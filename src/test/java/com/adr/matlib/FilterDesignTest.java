@@ -0,0 +1,87 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FilterDesignTest {
+  @Test
+  public void butterworthEdges() throws Exception {
+    double half = Math.sqrt(0.5);
+
+    assertEquals(half, gain(FilterDesign.lowPass(0.1, 2), 0.1), 1e-6);
+    assertEquals(1, gain(FilterDesign.lowPass(0.1, 2), 0.01), 1e-3);
+    assertEquals(0, gain(FilterDesign.lowPass(0.1, 2), 0.3), 1e-2);
+
+    assertEquals(half, gain(FilterDesign.highPass(0.2, 3), 0.2), 1e-6);
+    assertEquals(1, gain(FilterDesign.highPass(0.2, 3), 0.4), 1e-3);
+    assertEquals(0, gain(FilterDesign.highPass(0.2, 3), 0.05), 1e-3);
+
+    BiquadFilter band = FilterDesign.bandPass(0.1, 0.3, 3);
+    assertEquals(1, gain(band, 0.18), 1e-2);
+    assertEquals(0, gain(band, 0.02), 1e-3);
+    assertEquals(0, gain(band, 0.45), 1e-3);
+  }
+
+  @Test
+  public void notchRejectsCenter() throws Exception {
+    BiquadFilter notch = FilterDesign.notch(0.2, 0.22);
+
+    assertEquals(0, gain(notch, 0.21), 1e-6);
+    assertEquals(1, gain(notch, 0.05), 1e-2);
+    assertEquals(1, gain(notch, 0.4), 1e-2);
+  }
+
+  @Test
+  public void firShapes() throws Exception {
+    int taps = 101;
+
+    assertEquals(1, gain(FilterDesign.firLowPass(0.1, taps, Window.BLACKMAN), 0), 1e-12);
+    assertEquals(0.5, gain(FilterDesign.firLowPass(0.1, taps, Window.BLACKMAN), 0.1), 1e-2);
+    assertEquals(0, gain(FilterDesign.firLowPass(0.1, taps, Window.BLACKMAN), 0.2), 1e-3);
+
+    assertEquals(0, gain(FilterDesign.firHighPass(0.1, taps, Window.HAMMING), 0), 1e-12);
+    assertEquals(1, gain(FilterDesign.firHighPass(0.1, taps, Window.HAMMING), 0.3), 1e-2);
+
+    assertEquals(1, gain(FilterDesign.firBandPass(0.1, 0.3, taps, Window.HANN), 0.2), 1e-2);
+    assertEquals(0, gain(FilterDesign.firBandPass(0.1, 0.3, taps, Window.HANN), 0.4), 1e-3);
+
+    assertEquals(0, gain(FilterDesign.firNotch(0.1, 0.3, taps, Window.HANN), 0.2), 1e-2);
+    assertEquals(1, gain(FilterDesign.firNotch(0.1, 0.3, taps, Window.HANN), 0), 1e-12);
+  }
+
+  @Test
+  public void firIsLinearPhase() throws Exception {
+    double[] taps = FilterDesign.firBandPass(0.05, 0.15, 64, Window.HAMMING).taps();
+
+    for (int i = 0; i < taps.length; i++) {
+      assertEquals(taps[i], taps[taps.length - 1 - i], 1e-15);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void inversionNeedsOddTaps() throws Exception {
+    FilterDesign.firHighPass(0.1, 64, Window.HANN);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void frequencyAboveNyquist() throws Exception {
+    FilterDesign.lowPass(0.6, 1);
+  }
+
+  /**
+   * |H(f)| from the impulse response, long enough for the IIR designs to decay
+   */
+  private static double gain(StreamFilter filter, double frequency) {
+    double re = 0;
+    double im = 0;
+
+    for (int t = 0; t < 1 << 14; t++) {
+      double y = filter.process(t == 0 ? 1 : 0);
+      re += y * Math.cos(2 * Math.PI * frequency * t);
+      im -= y * Math.sin(2 * Math.PI * frequency * t);
+    }
+
+    return Math.hypot(re, im);
+  }
+}
@@ -0,0 +1,85 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class GoertzelTest {
+  @Test
+  public void matchesFft() throws Exception {
+    int n = 200;
+    int[] bins = {0, 1, 37, 100, 199};
+    double[] x = FftTest.randomArray(n + 5, 1);
+    double[] fftRe = new double[n];
+    double[] fftIm = new double[n];
+    System.arraycopy(x, 5, fftRe, 0, n);
+    Fft.transform(fftRe, fftIm, 1);
+
+    Goertzel goertzel = new Goertzel(n, bins);
+    double[] re = new double[bins.length];
+    double[] im = new double[bins.length];
+    double[] power = new double[bins.length];
+    double[] block = new double[n];
+    System.arraycopy(x, 5, block, 0, n);
+
+    goertzel.transform(x, 5, re, im);
+    goertzel.power(block, power);
+
+    for (int i = 0; i < bins.length; i++) {
+      int k = bins[i];
+      assertEquals(fftRe[k], re[i], 1e-10);
+      assertEquals(fftIm[k], im[i], 1e-10);
+      assertEquals(fftRe[k] * fftRe[k] + fftIm[k] * fftIm[k], power[i], 1e-9);
+    }
+  }
+
+  @Test
+  public void slidingMatchesGoertzel() throws Exception {
+    int n = 64;
+    int[] bins = {3, 8, 31, 32};
+    double[] x = FftTest.randomArray(10 * n + 17, 2);
+    Goertzel goertzel = new Goertzel(n, bins);
+    SlidingDft sliding = new SlidingDft(n, bins);
+    double[] padded = new double[n - 1 + x.length];
+    double[] re = new double[bins.length];
+    double[] im = new double[bins.length];
+    System.arraycopy(x, 0, padded, n - 1, x.length);
+
+    for (int t = 0; t < x.length; t++) {
+      sliding.update(x[t]);
+      goertzel.transform(padded, t, re, im);
+
+      for (int i = 0; i < bins.length; i++) {
+        assertEquals(re[i], sliding.re(i), 1e-10);
+        assertEquals(im[i], sliding.im(i), 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void slidingStaysAccurate() throws Exception {
+    // A tone exactly on bin 5 of the window, streamed far longer than one window
+    int n = 100;
+    SlidingDft sliding = new SlidingDft(n, new int[]{5, 6});
+    double[] power = new double[2];
+
+    for (int t = 0; t < 1000000; t++) {
+      sliding.update(Math.cos(2 * Math.PI * 5 * t / n));
+    }
+
+    sliding.power(power);
+
+    assertEquals(n * n / 4.0, power[0], 1e-6);
+    assertEquals(0, power[1], 1e-6);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void binOutOfRange() throws Exception {
+    new Goertzel(16, new int[]{16});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void blockTooShort() throws Exception {
+    new Goertzel(16, new int[]{1}).transform(new double[20], 5, new double[1], new double[1]);
+  }
+}
@@ -0,0 +1,85 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import com.adr.matlib.exception.NonConformableMatrixException;
+import org.junit.Test;
+
+public class LUDecompositionTest {
+  @Test
+  public void solve() throws Exception {
+    double[][] matrixA = {{1, 0, 2}, {2, -1, 3}, {4, 1, 8}};
+    LUDecomposition lu = new LUDecomposition(matrixA);
+
+    assertFalse(lu.isSingular());
+    assertArrayEquals(new double[]{-9, -2, 5}, lu.solve(new double[]{1, -1, 2}), 0.0001);
+    assertArrayEquals(new double[]{3, 1, -1}, lu.solve(new double[]{1, 2, 5}), 0.0001);
+  }
+
+  @Test
+  public void solveMultipleColumns() throws Exception {
+    double[][] matrixA = {{1, 1, 1}, {2, 3, 5}, {4, 0, 5}};
+    double[][] matrixB = {{5, 1}, {8, 0}, {2, 0}};
+    double[][] actual = new LUDecomposition(matrixA).solve(matrixB);
+
+    check2dArray(matrixB, MatLib.multiplyMatrix(matrixA, actual), 0.0001);
+    check2dArray(new double[][]{{3}, {4}, {-2}}, actual, 0.0001);
+  }
+
+  @Test
+  public void factorsMatchGaussianElimination() throws Exception {
+    double[][] matrixA = {{1, 0, 2}, {2, -1, 3}, {4, 1, 8}};
+    LUDecomposition lu = new LUDecomposition(matrixA);
+
+    double[][] upper = MatLib.gaussianElimination(matrixA, new double[][]{{1}, {-1}, {2}})[0];
+
+    check2dArray(upper, lu.upper(), 0.0001);
+
+    double[][] product = MatLib.multiplyMatrix(lu.lower(), lu.upper());
+    int[] pivot = lu.pivot();
+
+    for (int i = 0; i < pivot.length; i++) {
+      assertArrayEquals(matrixA[pivot[i]], product[i], 0.0001);
+    }
+  }
+
+  @Test
+  public void determinantAndInverse() throws Exception {
+    double[][] matrixA = {{2, -1, 0}, {-1, 2, -1}, {0, -1, 2}};
+    LUDecomposition lu = new LUDecomposition(matrixA);
+
+    double[][] expected = {{3.0/4, 1.0/2, 1.0/4}, {1.0/2, 1.0, 1.0/2}, {1.0/4, 1.0/2, 3.0/4}};
+
+    assertEquals(4, lu.determinant(), 0.0001);
+    check2dArray(expected, lu.inverse(), 0.0001);
+    assertEquals(-22, new LUDecomposition(new double[][]{{1, 4, 0}, {0, 2, 6}, {-1, 0, 1}}).determinant(), 0.0001);
+  }
+
+  @Test
+  public void singular() throws Exception {
+    LUDecomposition lu = new LUDecomposition(new double[][]{{1, 2}, {2, 4}});
+
+    assertTrue(lu.isSingular());
+    assertEquals(0, lu.determinant(), 0);
+
+    try {
+      lu.solve(new double[]{1, 1});
+      fail();
+    } catch (ArithmeticException e) {
+      // Expected
+    }
+  }
+
+  @Test(expected = NonConformableMatrixException.class)
+  public void notSquare() throws Exception {
+    new LUDecomposition(new double[][]{{1, 2, 3}, {4, 5, 6}});
+  }
+
+  private void check2dArray(double[][] expected, double[][] actual, double precision) {
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j], actual[i][j], precision);
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.adr.matlib;
 import static org.junit.Assert.*;
 
 import com.adr.matlib.exception.NonConformableMatrixException;
+import java.util.Random;
 import org.junit.Test;
 
 public class MatLibTest {
@@ -52,6 +53,30 @@ public class MatLibTest {
     }
   }
 
+  @Test
+  public void fftConvolution() throws Exception {
+    int n = 64;
+    int p = 5;
+    double[] u = new double[n];
+
+    for (int i = 0; i < n; i++) {
+      u[i] = Math.sin(i * 0.3) + (i % 7);
+    }
+
+    double[] actual = MatLib.fftConvolution(u, p);
+
+    // Circular moving average of the last p samples
+    for (int i = 0; i < n; i++) {
+      double expected = 0;
+
+      for (int k = 0; k < p; k++) {
+        expected += u[(i - k + n) % n] / p;
+      }
+
+      assertEquals(expected, actual[i], 1e-9);
+    }
+  }
+
   @Test
   public void generateVector() throws Exception {
     double[][] expected = {{1}, {1}, {1}};
@@ -274,6 +299,39 @@ public class MatLibTest {
     assertArrayEquals(new double[][]{{1, 0},{-1, 1}}, result);
   }
 
+  @Test
+  public void invertLargeMatrix() throws Exception {
+    int n = 40;
+    double[][] matrixA = new double[n][n];
+    java.util.Random random = new Random(340);
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        matrixA[i][j] = random.nextDouble() - 0.5;
+      }
+    }
+
+    double[][] inverse = MatLib.invertMatrix(matrixA)[1];
+
+    check2dArray(MatLib.generateIdentityMatrix(n), MatLib.multiplyMatrix(matrixA, inverse), 1e-9);
+  }
+
+  @Test
+  public void rowOperationsInPlace() throws Exception {
+    double[][] matrix = {{1, 2}, {3, 8}};
+    double[] firstRow = matrix[0];
+
+    MatLib.subtractRowInPlace(matrix, 0, 1, 3);
+    assertArrayEquals(new double[][]{{1, 2}, {0, 2}}, matrix);
+
+    MatLib.divideRowInPlace(matrix, 1, 2);
+    assertArrayEquals(new double[][]{{1, 2}, {0, 1}}, matrix);
+
+    MatLib.swapRowInPlace(matrix, 0, 1);
+    assertArrayEquals(new double[][]{{0, 1}, {1, 2}}, matrix);
+    assertSame(firstRow, matrix[1]);
+  }
+
   @Test
   public void swapRow() throws Exception {
     double[][] matrix = MatLib.generateIdentityMatrix(2);
@@ -315,6 +373,19 @@ public class MatLibTest {
     }
   }
 
+  @Test
+  public void gaussJordanEliminationMultipleColumns() throws Exception {
+    double[][] part1 = {{1, 1, 1}, {2, 3, 5}, {4, 0, 5}};
+    double[][] part2 = {{5, 1, 0}, {8, 0, 1}, {2, 0, 0}};
+    double[][][] partitions = MatLib.gaussJordanElimination(part1, part2);
+
+    double[][] expected = {{3, 15.0/13, -5.0/13}, {4, 10.0/13, 1.0/13}, {-2, -12.0/13, 4.0/13}};
+
+    check2dArray(MatLib.generateIdentityMatrix(3), partitions[0], 0.0001);
+    check2dArray(expected, partitions[1], 0.0001);
+    check2dArray(expected, MatLib.gaussJordanElimination(DenseMatrix.of(part1), DenseMatrix.of(part2))[1].toArray(), 0.0001);
+  }
+
   @Test
   public void concatenateMatrix() throws Exception {
     double[][] twoNGen = MatLib.generateIdentityMatrix(2);
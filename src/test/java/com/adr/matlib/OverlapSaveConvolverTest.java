@@ -0,0 +1,85 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class OverlapSaveConvolverTest {
+  @Test
+  public void streamMatchesDirectConvolution() throws Exception {
+    double[] kernel = FftTest.randomArray(37, 41);
+    double[] input = FftTest.randomArray(5000, 42);
+    double[] expected = convolve(kernel, input);
+
+    OverlapSaveConvolver convolver = new OverlapSaveConvolver(kernel, 100);
+    double[] actual = new double[input.length];
+    int produced = 0;
+    int consumed = 0;
+    Random random = new Random(43);
+
+    // Chunks smaller and larger than a block
+    while (consumed < input.length) {
+      int count = Math.min(random.nextInt(400), input.length - consumed);
+      double[] chunk = new double[count];
+      System.arraycopy(input, consumed, chunk, 0, count);
+      consumed += count;
+
+      double[] output = convolver.process(chunk);
+      System.arraycopy(output, 0, actual, produced, output.length);
+      produced += output.length;
+    }
+
+    double[] rest = convolver.flush();
+    System.arraycopy(rest, 0, actual, produced, rest.length);
+
+    assertEquals(input.length, produced + rest.length);
+    assertArrayEquals(expected, actual, 1e-10);
+  }
+
+  @Test
+  public void processBlock() throws Exception {
+    double[] kernel = {0.25, 0.5, 0.25};
+    OverlapSaveConvolver convolver = new OverlapSaveConvolver(kernel);
+    int block = convolver.blockSize();
+
+    assertEquals(convolver.fftSize(), block + kernel.length - 1);
+
+    double[] input = FftTest.randomArray(3 * block, 44);
+    double[] expected = convolve(kernel, input);
+    double[] actual = new double[input.length];
+
+    for (int b = 0; b < 3; b++) {
+      convolver.processBlock(input, b * block, actual, b * block);
+    }
+
+    assertArrayEquals(expected, actual, 1e-12);
+    assertEquals(0, convolver.flush().length);
+  }
+
+  @Test
+  public void singleTapAndReset() throws Exception {
+    OverlapSaveConvolver convolver = new OverlapSaveConvolver(new double[]{2});
+
+    convolver.process(new double[]{1, 2, 3});
+    assertArrayEquals(new double[]{2, 4, 6}, convolver.flush(), 1e-12);
+
+    // flush starts a new stream from silence
+    OverlapSaveConvolver delay = new OverlapSaveConvolver(new double[]{0, 1}, 1);
+    assertArrayEquals(new double[]{0, 1, 2}, delay.process(new double[]{1, 2, 3}), 1e-12);
+    delay.reset();
+    assertArrayEquals(new double[]{0, 5}, delay.process(new double[]{5, 6}), 1e-12);
+  }
+
+  private static double[] convolve(double[] kernel, double[] input) {
+    double[] output = new double[input.length];
+
+    for (int t = 0; t < input.length; t++) {
+      for (int k = 0; k < kernel.length && k <= t; k++) {
+        output[t] += kernel[k] * input[t - k];
+      }
+    }
+
+    return output;
+  }
+}
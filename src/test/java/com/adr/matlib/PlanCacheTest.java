@@ -0,0 +1,32 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PlanCacheTest {
+  @Test
+  public void hitsReturnTheCachedInstance() throws Exception {
+    PlanCache<long[]> cache = new PlanCache<>(4);
+    long[] first = cache.get(7, key -> new long[]{key});
+
+    // A hit must not call the factory
+    assertSame(first, cache.get(7, key -> {
+      throw new AssertionError("Factory called for a cached key");
+    }));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void oldestEntryIsDropped() throws Exception {
+    PlanCache<long[]> cache = new PlanCache<>(3);
+    long[] oldest = cache.get(1, key -> new long[]{key});
+    long[] kept = cache.get(2, key -> new long[]{key});
+    cache.get(3, key -> new long[]{key});
+    cache.get(4, key -> new long[]{key});
+
+    assertEquals(3, cache.size());
+    assertSame(kept, cache.get(2, key -> new long[]{key}));
+    assertNotSame(oldest, cache.get(1, key -> new long[]{key}));
+  }
+}
@@ -0,0 +1,146 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PulseDetectorTest {
+  @Test
+  public void findsEmbeddedPulses() throws Exception {
+    double[] pulse = FftTest.randomArray(51, 51);
+    double[] signal = FftTest.randomArray(20000, 52);
+
+    for (int i = 0; i < signal.length; i++) {
+      signal[i] *= 0.05;
+    }
+
+    for (int lag : new int[]{300, 7777, 19949}) {
+      for (int j = 0; j < pulse.length; j++) {
+        signal[lag + j] += 3 * pulse[j];
+      }
+    }
+
+    List<PulseDetector.Detection> detections = detect(new PulseDetector(pulse, 0.9), signal, 53);
+
+    assertEquals(3, detections.size());
+    assertEquals(300, detections.get(0).lag());
+    assertEquals(7777, detections.get(1).lag());
+    assertEquals(19949, detections.get(2).lag());
+    assertTrue(detections.get(0).score() <= 1 + 1e-12);
+  }
+
+  @Test
+  public void reportsPeakOfEachRunAboveThreshold() throws Exception {
+    double[] pulse = FftTest.randomArray(20, 54);
+    double[] signal = FftTest.randomArray(3000, 55);
+    double threshold = 0.4;
+    double[] scores = directScores(pulse, signal);
+    List<PulseDetector.Detection> detections = detect(new PulseDetector(pulse, threshold), signal, 56);
+    int run = 0;
+
+    for (int lag = 0; lag < scores.length; lag++) {
+      if (scores[lag] < threshold) {
+        continue;
+      }
+
+      int peak = lag;
+
+      while (lag + 1 < scores.length && scores[lag + 1] >= threshold) {
+        lag++;
+
+        if (scores[lag] > scores[peak]) {
+          peak = lag;
+        }
+      }
+
+      PulseDetector.Detection detection = detections.get(run++);
+      assertEquals(peak, detection.lag());
+      assertEquals(scores[peak], detection.score(), 1e-9);
+    }
+
+    assertTrue(run > 10);
+    assertEquals(run, detections.size());
+  }
+
+  @Test
+  public void flushStartsNewStream() throws Exception {
+    double[] pulse = {1, -1, 1};
+    PulseDetector detector = new PulseDetector(pulse, 0.99);
+
+    assertTrue(detector.process(new double[]{0, 2, -2, 2}).isEmpty());
+    assertEquals(1, detector.flush().get(0).lag());
+
+    detector.process(new double[]{1, -1, 1});
+    List<PulseDetector.Detection> detections = detector.flush();
+    assertEquals(1, detections.size());
+    assertEquals(0, detections.get(0).lag());
+    assertEquals(1, detections.get(0).score(), 1e-12);
+  }
+
+  private static List<PulseDetector.Detection> detect(PulseDetector detector, double[] signal, long seed) {
+    List<PulseDetector.Detection> detections = new ArrayList<>();
+    Random random = new Random(seed);
+    int consumed = 0;
+
+    while (consumed < signal.length) {
+      int count = Math.min(random.nextInt(700), signal.length - consumed);
+      double[] chunk = new double[count];
+      System.arraycopy(signal, consumed, chunk, 0, count);
+      consumed += count;
+
+      detections.addAll(detector.process(chunk));
+    }
+
+    detections.addAll(detector.flush());
+
+    return detections;
+  }
+
+  @Test
+  public void noiseThresholdMatchesScoreSpread() throws Exception {
+    // Scores of a template against white noise spread with deviation 1 / sqrt(m)
+    int m = 64;
+    double[] scores = directScores(FftTest.randomArray(m, 11), FftTest.randomArray(100000, 12));
+    double sum = 0;
+
+    for (double score : scores) {
+      sum += score * score;
+    }
+
+    assertEquals(0.125, PulseDetector.noiseThreshold(m, 1), 0);
+    assertEquals(PulseDetector.noiseThreshold(m, 1), Math.sqrt(sum / scores.length), 0.01);
+  }
+
+  @Test
+  public void defaultThresholdRejectsNoise() throws Exception {
+    double[] pulse = FftTest.randomArray(52, 57);
+
+    for (long seed = 0; seed < 200; seed++) {
+      PulseDetector detector = new PulseDetector(pulse);
+      assertTrue(detector.process(FftTest.randomArray(pulse.length, 1000 + seed)).isEmpty());
+      assertTrue(detector.flush().isEmpty());
+    }
+  }
+
+  private static double[] directScores(double[] pulse, double[] signal) {
+    double[] scores = new double[signal.length - pulse.length + 1];
+    double pulseEnergy = Correlation.energy(pulse);
+
+    for (int lag = 0; lag < scores.length; lag++) {
+      double correlation = 0;
+      double energy = 0;
+
+      for (int j = 0; j < pulse.length; j++) {
+        correlation += pulse[j] * signal[lag + j];
+        energy += signal[lag + j] * signal[lag + j];
+      }
+
+      scores[lag] = correlation / Math.sqrt(energy * pulseEnergy);
+    }
+
+    return scores;
+  }
+}
@@ -0,0 +1,82 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RealFftPlanTest {
+  @Test
+  public void matchesComplexTransform() throws Exception {
+    for (int n = 2; n <= 1024; n *= 2) {
+      double[] x = FftTest.randomArray(n, n);
+      double[] re = x.clone();
+      double[] im = new double[n];
+      Fft.transform(re, im, 1);
+
+      double[] binRe = new double[n / 2 + 1];
+      double[] binIm = new double[n / 2 + 1];
+      Fft.realForward(x, binRe, binIm);
+
+      for (int k = 0; k <= n / 2; k++) {
+        assertEquals(re[k], binRe[k], 1e-10);
+        assertEquals(im[k], binIm[k], 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void inverseRoundTrip() throws Exception {
+    for (int n = 2; n <= 4096; n *= 4) {
+      double[] x = FftTest.randomArray(n, n + 1);
+      double[] original = x.clone();
+      RealFftPlan plan = RealFftPlan.of(n);
+
+      double[] re = new double[plan.bins()];
+      double[] im = new double[plan.bins()];
+      plan.forward(x, re, im);
+
+      assertArrayEquals(original, x, 0);
+
+      double[] y = new double[n];
+      plan.inverse(re, im, y);
+
+      assertArrayEquals(original, y, 1e-12);
+    }
+  }
+
+  @Test
+  public void anyLength() throws Exception {
+    for (int n : new int[]{1, 3, 10, 30, 51, 1023, 2046}) {
+      double[] x = FftTest.randomArray(n, n + 2);
+      double[][] expected = FftTest.dft(x, new double[n], 1);
+      RealFftPlan plan = RealFftPlan.of(n);
+
+      double[] re = new double[plan.bins()];
+      double[] im = new double[plan.bins()];
+      plan.forward(x, re, im);
+
+      for (int k = 0; k < plan.bins(); k++) {
+        assertEquals(expected[0][k], re[k], 1e-9);
+        assertEquals(expected[1][k], im[k], 1e-9);
+      }
+
+      double[] y = new double[n];
+      plan.inverse(re, im, y);
+
+      assertArrayEquals(x, y, 1e-12);
+    }
+  }
+
+  @Test
+  public void cachedPlansAreShared() throws Exception {
+    assertSame(RealFftPlan.of(512), RealFftPlan.of(512));
+    assertEquals(257, RealFftPlan.of(512).bins());
+    assertSame(RealFftPlan.of(385), RealFftPlan.of(385));
+    assertEquals(385, RealFftPlan.of(385).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongBinCount() throws Exception {
+    RealFftPlan.of(8).forward(new double[8], new double[8], new double[8]);
+  }
+}
@@ -0,0 +1,94 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SignalGeneratorTest {
+  @Test
+  public void oscillatorMatchesSine() throws Exception {
+    double frequency = 0.01234567;
+    Oscillator oscillator = new Oscillator(2, frequency, 0.3);
+    double[] block = new double[1 << 20];
+    oscillator.generate(block, 0, block.length);
+
+    for (int n = 0; n < block.length; n += 997) {
+      assertEquals(2 * Math.sin(2 * Math.PI * frequency * n + 0.3), block[n], 1e-9);
+    }
+
+    // next() continues where the block stopped
+    long n = block.length;
+    assertEquals(2 * Math.sin(2 * Math.PI * frequency * n + 0.3), oscillator.next(), 1e-9);
+    assertEquals(n + 1, oscillator.position());
+  }
+
+  @Test
+  public void chunksMatchBulk() throws Exception {
+    SignalGenerator bulk = new SignalGenerator(new double[]{1, 0.5}, new double[]{0.01, 0.37}, new double[]{0, 1});
+    SignalGenerator streamed = new SignalGenerator(new double[]{1, 0.5}, new double[]{0.01, 0.37}, new double[]{0, 1});
+    double[] expected = bulk.next(5000);
+    double[] actual = new double[5000];
+
+    for (int offset = 0; offset < actual.length; offset += 333) {
+      streamed.fill(actual, offset, Math.min(333, actual.length - offset));
+    }
+
+    assertArrayEquals(expected, actual, 1e-15);
+
+    streamed.reset();
+    assertArrayEquals(expected, streamed.next(5000), 1e-15);
+  }
+
+  @Test
+  public void matLibSines() throws Exception {
+    int samples = 4096;
+    double[] sum = MatLib.sinSummation(1.5, 3, 40, 0.1, samples);
+    double[] product = MatLib.sinProduct(1.5, 3, 40, 0.1, samples);
+
+    for (int i = 0; i < samples; i++) {
+      double t = i * 1.0 / samples;
+      double first = MatLib.sin(1.5, 3, 0.1, t);
+      double second = MatLib.sin(1.5, 40, 0.1, t);
+      assertEquals(first + second, sum[i], 1e-12);
+      assertEquals(first * second, product[i], 1e-12);
+    }
+  }
+
+  @Test
+  public void bandLimitedSquare() throws Exception {
+    // 16 cycles in 1024 samples, harmonics 1, 3, ..., 31 below Nyquist
+    int n = 1024;
+    SignalGenerator square = SignalGenerator.square(1, 16.0 / n);
+    double[] re = square.next(n);
+    double[] im = new double[n];
+
+    assertEquals(16, square.tones());
+    assertEquals(1, re[n / 64], 0.05);
+    assertEquals(-1, re[3 * n / 64], 0.05);
+
+    Fft.transform(re, im, 1);
+
+    for (int k = 1; k < n / 2; k++) {
+      double magnitude = Math.hypot(re[k], im[k]) * 2 / n;
+      int harmonic = k / 16;
+      boolean odd = k % 16 == 0 && harmonic % 2 == 1;
+      assertEquals(odd ? 4 / (Math.PI * harmonic) : 0, magnitude, 1e-9);
+    }
+  }
+
+  @Test
+  public void bandLimitedSaw() throws Exception {
+    SignalGenerator saw = SignalGenerator.saw(2, 0.01);
+    double[] wave = saw.next(100);
+
+    assertEquals(49, saw.tones());
+    assertEquals(0, wave[0], 1e-12);
+    assertEquals(1, wave[25], 0.05);
+    assertEquals(-1, wave[75], 0.05);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void squareAboveNyquist() throws Exception {
+    SignalGenerator.square(1, 0.5);
+  }
+}
@@ -0,0 +1,154 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class SpectralFilterChainTest {
+  @Test
+  public void masksMatchOriginalFilters() throws Exception {
+    for (int length : new int[]{1, 2, 7, 16, 33}) {
+      double[] data = FftTest.randomArray(length, length);
+
+      for (int n = 0; n <= length; n++) {
+        assertArrayEquals(multiply(data, lowPassMask(length, n)), MatLib.lowPassFilter(data, n), 0);
+        assertArrayEquals(multiply(data, highPassMask(length, n)), MatLib.highPassFilter(data, n), 0);
+      }
+
+      for (int lower = 0; lower < length; lower++) {
+        for (int upper = lower; upper < length; upper++) {
+          assertArrayEquals(multiply(data, bandMask(length, lower, upper, 0, 1)), MatLib.bandPassFilter(data, lower, upper), 0);
+          assertArrayEquals(multiply(data, bandMask(length, lower, upper, 1, 0)), MatLib.notchFilter(data, lower, upper), 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void chainMatchesSuccessiveFilters() throws Exception {
+    double[] data = FftTest.randomArray(1000, 1);
+    double[] expected = MatLib.lowPassFilter(MatLib.notchFilter(MatLib.highPassFilter(data, 3), 40, 60), 300);
+    SpectralFilterChain chain = new SpectralFilterChain().highPass(3).notch(40, 60).lowPass(300);
+
+    chain.apply(data);
+
+    assertEquals(3, chain.stages());
+    assertArrayEquals(expected, data, 0);
+  }
+
+  @Test
+  public void complexSpectrum() throws Exception {
+    double[] re = FftTest.randomArray(64, 2);
+    double[] im = FftTest.randomArray(64, 3);
+    SpectralFilterChain chain = new SpectralFilterChain().bandPass(4, 20).then(new SpectralFilterChain().gain(10, 12, 0.5));
+    double[] response = chain.response(64);
+    double[] expectedRe = multiply(re, response);
+    double[] expectedIm = multiply(im, response);
+
+    chain.apply(re, im);
+
+    assertArrayEquals(expectedRe, re, 0);
+    assertArrayEquals(expectedIm, im, 0);
+    assertEquals(0.5, response[11], 0);
+    assertEquals(0.5, response[64 - 11], 0);
+    assertEquals(1, response[4], 0);
+    assertEquals(0, response[3], 0);
+  }
+
+  @Test
+  public void halfSpectrumUsesFullLengthBins() throws Exception {
+    int n = 64;
+    double[] x = FftTest.randomArray(n, 4);
+    SpectralFilterChain chain = new SpectralFilterChain().lowPass(20).notch(5, 8);
+
+    double[] fullRe = x.clone();
+    double[] fullIm = new double[n];
+    Fft.transform(fullRe, fullIm, 1);
+    chain.apply(fullRe, fullIm);
+
+    double[] halfRe = new double[n / 2 + 1];
+    double[] halfIm = new double[n / 2 + 1];
+    Fft.realForward(x, halfRe, halfIm);
+    chain.applyHalfSpectrum(halfRe, halfIm, n);
+
+    for (int k = 0; k <= n / 2; k++) {
+      assertEquals(fullRe[k], halfRe[k], 1e-12);
+      assertEquals(fullIm[k], halfIm[k], 1e-12);
+    }
+
+    // Bins 20 to 32 are above the low pass; treated as a 33 bin spectrum they would be kept
+    assertEquals(0, halfRe[30], 0);
+  }
+
+  @Test
+  public void stagesAreImmutable() throws Exception {
+    SpectralFilterChain base = new SpectralFilterChain().lowPass(4);
+    SpectralFilterChain longer = base.highPass(1);
+
+    assertEquals(1, base.stages());
+    assertEquals(2, longer.stages());
+    assertEquals(1, base.response(16)[0], 0);
+    assertEquals(0, longer.response(16)[0], 0);
+  }
+
+  @Test
+  public void boundsBeyondSpectrumAreIgnored() throws Exception {
+    assertArrayEquals(new double[]{1, 1, 1}, new SpectralFilterChain().lowPass(10).response(3), 0);
+    assertArrayEquals(new double[]{0, 0, 0}, new SpectralFilterChain().highPass(10).response(3), 0);
+  }
+
+  @Test
+  public void removedBinsStayNotANumber() throws Exception {
+    // The masks multiply, so a removed NaN stays NaN as it did with the mask arrays
+    double[] data = {Double.NaN, 1, 2, 3};
+
+    new SpectralFilterChain().highPass(1).apply(data);
+
+    assertTrue(Double.isNaN(data[0]));
+  }
+
+  private static double[] multiply(double[] data, double[] mask) {
+    double[] result = data.clone();
+
+    for (int i = 0; i < result.length; i++) {
+      result[i] *= mask[i];
+    }
+
+    return result;
+  }
+
+  private static double[] lowPassMask(int length, int n) {
+    double[] filter = new double[length];
+
+    for (int i = 0; i < n; i++) {
+      filter[i] = 1;
+      filter[length - i - 1] = 1;
+    }
+
+    return filter;
+  }
+
+  private static double[] highPassMask(int length, int n) {
+    double[] filter = new double[length];
+    Arrays.fill(filter, 1);
+    Arrays.fill(filter, 0, n, 0);
+
+    return filter;
+  }
+
+  private static double[] bandMask(int length, int lower, int upper, int fill, int value) {
+    double[] filter = new double[length];
+    Arrays.fill(filter, fill);
+
+    for (int i = lower; i <= upper; i++) {
+      filter[i] = value;
+    }
+
+    for (int i = lower; i < upper; i++) {
+      filter[length - 1 - i] = value;
+    }
+
+    return filter;
+  }
+}
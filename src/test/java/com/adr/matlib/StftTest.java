@@ -0,0 +1,140 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class StftTest {
+  @Test
+  public void framesAreWindowedPaddedTransforms() throws Exception {
+    Stft stft = new Stft(48, 20, 64, Window.HANN);
+    double[] x = FftTest.randomArray(200, 1);
+    int frames = stft.frames(x.length);
+    double[] re = new double[frames * stft.bins()];
+    double[] im = new double[frames * stft.bins()];
+
+    assertEquals(8, frames);
+    assertEquals(33, stft.bins());
+    assertEquals(188, stft.signalLength(frames));
+
+    stft.transform(x, re, im);
+
+    double[] w = Window.HANN.coefficients(48);
+
+    for (int m = 0; m < frames; m++) {
+      double[] frameRe = new double[64];
+      double[] frameIm = new double[64];
+
+      for (int i = 0; i < 48; i++) {
+        frameRe[i] = x[m * 20 + i] * w[i];
+      }
+
+      double[][] expected = FftTest.dft(frameRe, frameIm, 1);
+
+      for (int k = 0; k < stft.bins(); k++) {
+        assertEquals(expected[0][k], re[m * stft.bins() + k], 1e-10);
+        assertEquals(expected[1][k], im[m * stft.bins() + k], 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void parallelMatchesSerial() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      Stft stft = new Stft(256, 64, Window.HAMMING);
+      double[] x = FftTest.randomArray(50000, 2);
+      int frames = stft.frames(x.length);
+      double[] re = new double[frames * stft.bins()];
+      double[] im = new double[frames * stft.bins()];
+      double[] parallelRe = new double[re.length];
+      double[] parallelIm = new double[im.length];
+
+      stft.transform(x, re, im);
+      stft.transform(x, parallelRe, parallelIm, pool);
+
+      assertArrayEquals(re, parallelRe, 0);
+      assertArrayEquals(im, parallelIm, 0);
+
+      // Written into the interior of a larger matrix through a view
+      DenseMatrix matrix = new DenseMatrix(frames + 2, stft.bins() + 3);
+      DenseMatrix power = matrix.subMatrix(1, 2, frames, stft.bins());
+      stft.spectrogram(x, power, pool);
+
+      for (int m = 0; m < frames; m++) {
+        for (int k = 0; k < stft.bins(); k++) {
+          int i = m * stft.bins() + k;
+          assertEquals(re[i] * re[i] + im[i] * im[i], power.get(m, k), 0);
+        }
+      }
+
+      assertEquals(0, matrix.get(0, 2), 0);
+      assertEquals(0, matrix.get(1, 1), 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void streamMatchesBatch() throws Exception {
+    Stft stft = new Stft(100, 30, 128, Window.BLACKMAN);
+    double[] x = FftTest.randomArray(3000, 3);
+    int frames = stft.frames(x.length);
+    int bins = stft.bins();
+    double[] re = new double[frames * bins];
+    double[] im = new double[frames * bins];
+    double[] streamedRe = new double[frames * bins];
+    double[] streamedIm = new double[frames * bins];
+    stft.transform(x, re, im);
+
+    Stft.Stream stream = stft.stream();
+    Stft.FrameSink sink = (index, frameRe, frameIm) -> {
+      System.arraycopy(frameRe, 0, streamedRe, (int) index * bins, bins);
+      System.arraycopy(frameIm, 0, streamedIm, (int) index * bins, bins);
+    };
+
+    for (int offset = 0; offset < x.length; offset += 71) {
+      double[] chunk = new double[Math.min(71, x.length - offset)];
+      System.arraycopy(x, offset, chunk, 0, chunk.length);
+      stream.process(chunk, sink);
+    }
+
+    assertEquals(frames, stream.frames());
+    assertArrayEquals(re, streamedRe, 0);
+    assertArrayEquals(im, streamedIm, 0);
+  }
+
+  @Test
+  public void inverseReconstructs() throws Exception {
+    double[] x = FftTest.randomArray(4096, 4);
+
+    for (Stft stft : new Stft[]{new Stft(256, 64, Window.HANN), new Stft(200, 200, Window.RECTANGULAR), new Stft(90, 45, 128, Window.HAMMING)}) {
+      int frames = stft.frames(x.length);
+      double[] re = new double[frames * stft.bins()];
+      double[] im = new double[frames * stft.bins()];
+      stft.transform(x, re, im);
+
+      double[] y = stft.inverse(re, im, frames);
+
+      assertEquals(stft.signalLength(frames), y.length);
+
+      // Sample 0 sits on a zero of the Hann window
+      for (int i = 1; i < y.length; i++) {
+        assertEquals(x[i], y[i], 1e-10);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void hopLongerThanFrame() throws Exception {
+    new Stft(64, 65, Window.HANN);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void spectrogramTooSmall() throws Exception {
+    Stft stft = new Stft(64, 32, Window.HANN);
+    stft.transform(new double[256], new double[stft.bins()], new double[stft.bins()]);
+  }
+}
@@ -0,0 +1,94 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StreamFilterTest {
+  @Test
+  public void firMatchesConvolution() throws Exception {
+    double[] taps = FftTest.randomArray(9, 1);
+    double[] x = FftTest.randomArray(100, 2);
+    FirFilter filter = new FirFilter(taps);
+
+    for (int t = 0; t < x.length; t++) {
+      double expected = 0;
+
+      for (int k = 0; k <= Math.min(t, taps.length - 1); k++) {
+        expected += taps[k] * x[t - k];
+      }
+
+      assertEquals(expected, filter.process(x[t]), 1e-12);
+    }
+  }
+
+  @Test
+  public void biquadMatchesDifferenceEquation() throws Exception {
+    double[] section = {0.2, 0.3, 0.1, -0.5, 0.25};
+    double[] x = FftTest.randomArray(50, 3);
+    BiquadFilter filter = new BiquadFilter(new double[][]{section});
+    double[] y = new double[x.length];
+
+    for (int t = 0; t < x.length; t++) {
+      y[t] = section[0] * x[t];
+
+      if (t >= 1) {
+        y[t] += section[1] * x[t - 1] - section[3] * y[t - 1];
+      }
+
+      if (t >= 2) {
+        y[t] += section[2] * x[t - 2] - section[4] * y[t - 2];
+      }
+
+      assertEquals(y[t], filter.process(x[t]), 1e-12);
+    }
+  }
+
+  @Test
+  public void blocksCarryState() throws Exception {
+    double[] x = FftTest.randomArray(1000, 4);
+    StreamFilter[] whole = {FilterDesign.bandPass(0.1, 0.2, 3), FilterDesign.firLowPass(0.1, 31, Window.HAMMING)};
+    StreamFilter[] blocks = {FilterDesign.bandPass(0.1, 0.2, 3), FilterDesign.firLowPass(0.1, 31, Window.HAMMING)};
+
+    for (int f = 0; f < whole.length; f++) {
+      double[] expected = new double[x.length];
+
+      for (int t = 0; t < x.length; t++) {
+        expected[t] = whole[f].process(x[t]);
+      }
+
+      double[] actual = x.clone();
+
+      for (int offset = 0; offset < x.length; offset += 77) {
+        blocks[f].process(actual, offset, actual, offset, Math.min(77, x.length - offset));
+      }
+
+      assertArrayEquals(expected, actual, 1e-12);
+
+      blocks[f].reset();
+      double[] again = x.clone();
+      blocks[f].process(again);
+
+      assertArrayEquals(expected, again, 1e-12);
+    }
+  }
+
+  @Test
+  public void cascadeRunsInOrder() throws Exception {
+    BiquadFilter first = FilterDesign.lowPass(0.2, 1);
+    BiquadFilter second = FilterDesign.highPass(0.05, 2);
+    BiquadFilter both = first.then(second);
+    double[] x = FftTest.randomArray(200, 5);
+
+    assertEquals(3, both.sections());
+
+    for (double sample : x) {
+      assertEquals(second.process(first.process(sample)), both.process(sample), 1e-12);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sectionNeedsFiveCoefficients() throws Exception {
+    new BiquadFilter(new double[][]{{1, 0, 0, 0}});
+  }
+}
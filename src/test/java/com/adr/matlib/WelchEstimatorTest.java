@@ -0,0 +1,167 @@
+package com.adr.matlib;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class WelchEstimatorTest {
+  @Test
+  public void windowCoefficients() throws Exception {
+    assertArrayEquals(new double[]{1, 1, 1, 1}, Window.RECTANGULAR.coefficients(4), 0);
+    assertArrayEquals(new double[]{0, 0.5, 1, 0.5}, Window.HANN.coefficients(4), 1e-15);
+    assertArrayEquals(new double[]{0.08, 0.54, 1, 0.54}, Window.HAMMING.coefficients(4), 1e-15);
+    assertArrayEquals(new double[]{0, 0.34, 1, 0.34}, Window.BLACKMAN.coefficients(4), 1e-15);
+  }
+
+  @Test
+  public void singleSegmentIsScaledPeriodogram() throws Exception {
+    int n = 64;
+    double[] x = FftTest.randomArray(n, 1);
+    double[] w = Window.HANN.coefficients(n);
+    double[] re = new double[n];
+    double[] im = new double[n];
+    double power = 0;
+
+    for (int i = 0; i < n; i++) {
+      re[i] = x[i] * w[i];
+      power += w[i] * w[i];
+    }
+
+    double[][] expected = FftTest.dft(re, im, 1);
+    WelchEstimator estimator = new WelchEstimator(n, n / 2, Window.HANN);
+    estimator.update(x);
+    double[] psd = estimator.estimate();
+
+    assertEquals(1, estimator.segments());
+    assertEquals(n / 2 + 1, psd.length);
+
+    for (int k = 0; k < psd.length; k++) {
+      double magnitude = expected[0][k] * expected[0][k] + expected[1][k] * expected[1][k];
+      assertEquals(magnitude / power, psd[k], 1e-12);
+    }
+  }
+
+  @Test
+  public void toneAndNoiseLevel() throws Exception {
+    int n = 1 << 14;
+    int length = 256;
+    double[] x = FftTest.randomArray(n, 2);
+
+    // Uniform noise on [-0.5, 0.5) has variance 1/12, the expected level of every bin
+    WelchEstimator noise = new WelchEstimator(length, length / 2, Window.HAMMING);
+    noise.update(x);
+    double[] level = noise.estimate();
+    double mean = 0;
+
+    for (int k = 1; k < length / 2; k++) {
+      mean += level[k] / (length / 2 - 1);
+    }
+
+    assertEquals(1.0 / 12, mean, 0.005);
+
+    for (int i = 0; i < n; i++) {
+      x[i] += Math.sin(2 * Math.PI * 32 * i / length);
+    }
+
+    WelchEstimator tone = new WelchEstimator(length, length / 2, Window.BLACKMAN);
+    tone.update(x);
+    double[] psd = tone.estimate();
+    int peak = 0;
+
+    for (int k = 1; k < psd.length; k++) {
+      if (psd[k] > psd[peak]) {
+        peak = k;
+      }
+    }
+
+    assertEquals(32, peak);
+    assertEquals((n - length) / (length / 2) + 1, tone.segments());
+  }
+
+  @Test
+  public void chunksMatchWholeSignal() throws Exception {
+    double[] x = FftTest.randomArray(5000, 3);
+    WelchEstimator whole = new WelchEstimator(200, 150, Window.HANN);
+    WelchEstimator streamed = new WelchEstimator(200, 150, Window.HANN);
+
+    whole.update(x);
+
+    for (int i = 0; i < x.length; i += 37) {
+      double[] chunk = new double[Math.min(37, x.length - i)];
+      System.arraycopy(x, i, chunk, 0, chunk.length);
+      streamed.update(chunk);
+    }
+
+    assertEquals(whole.segments(), streamed.segments());
+    assertArrayEquals(whole.estimate(), streamed.estimate(), 1e-15);
+  }
+
+  @Test
+  public void mergeMatchesOneEstimator() throws Exception {
+    // Worker b starts at the first segment worker a would not complete
+    int length = 128;
+    int overlap = 32;
+    int hop = length - overlap;
+    double[] x = FftTest.randomArray(20 * hop + overlap, 4);
+    double[] first = new double[10 * hop + overlap];
+    double[] second = new double[x.length - 10 * hop];
+    System.arraycopy(x, 0, first, 0, first.length);
+    System.arraycopy(x, 10 * hop, second, 0, second.length);
+
+    WelchEstimator whole = new WelchEstimator(length, overlap, Window.RECTANGULAR);
+    WelchEstimator a = new WelchEstimator(length, overlap, Window.RECTANGULAR);
+    WelchEstimator b = new WelchEstimator(length, overlap, Window.RECTANGULAR);
+    whole.update(x);
+    a.update(first);
+    b.update(second);
+    a.merge(b);
+
+    assertEquals(whole.segments(), a.segments());
+    assertArrayEquals(whole.estimate(), a.estimate(), 1e-12);
+  }
+
+  @Test
+  public void psdIsSquaredMagnitude() throws Exception {
+    double[] re = FftTest.randomArray(50, 5);
+    double[] im = FftTest.randomArray(50, 6);
+    Complex[] z = new Complex[50];
+
+    for (int i = 0; i < z.length; i++) {
+      z[i] = new Complex(re[i], im[i]);
+    }
+
+    double[][] expected = FftTest.dft(re, im, 1);
+    double[] psd = MatLib.PSD(z);
+
+    for (int k = 0; k < z.length; k++) {
+      assertEquals(expected[0][k] * expected[0][k] + expected[1][k] * expected[1][k], psd[k], 1e-9);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void overlapMustBeShorterThanSegment() throws Exception {
+    new WelchEstimator(64, 64, Window.HANN);
+  }
+
+  @Test
+  public void mergeIntoItselfIsRejected() throws Exception {
+    WelchEstimator estimator = new WelchEstimator(64, 32, Window.HANN);
+    estimator.update(FftTest.randomArray(256, 7));
+    double[] before = estimator.estimate();
+
+    try {
+      estimator.merge(estimator);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    assertEquals(7, estimator.segments());
+    assertArrayEquals(before, estimator.estimate(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void mergeNeedsSameConfiguration() throws Exception {
+    new WelchEstimator(64, 32, Window.HANN).merge(new WelchEstimator(64, 32, Window.HAMMING));
+  }
+}